@@ -0,0 +1,331 @@
+package com.upokecenter.rdf;
+
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.function.*;
+
+import com.upokecenter.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A markable character input that reads US-ASCII text directly from a byte
+   * buffer, which can be a heap or direct buffer. Each byte is one
+   * character; bytes 0x80 and above are read as the replacement character
+   * U+FFFD, as the US-ASCII decoder does. Marks are offsets into the buffer,
+   * so setting a mark or moving back doesn't copy anything. When scanning
+   * with a CodePointTable that has a word check, eight bytes are checked at
+   * a time.
+   */
+  final class AsciiCharacterInput implements IMarkableCharacterInput,
+      IByteCounter {
+    private ByteBuffer buffer;
+    private int pos;
+    private int limit;
+    private int markStart;
+    private boolean haveMark;
+
+    // Characters of a run, gathered before being appended to a
+    // string builder in one call
+    private char[] chars = new char[64];
+
+    // Bytes of a run in a direct buffer, gathered before being
+    // made into a string
+    private byte[] bytes = new byte[64];
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.AsciiCharacterInput} class.
+     * @param buffer A buffer whose bytes from position 0 to its limit are
+     * read. Its position and limit aren't changed.
+     * @throws NullPointerException The parameter {@code buffer} is null.
+     */
+    public AsciiCharacterInput(ByteBuffer buffer) {
+      this.Reset(buffer);
+    }
+
+    /**
+     * Starts reading from another buffer, as though this object had just
+     * been created with it.
+     * @param buffer A buffer whose bytes from position 0 to its limit are
+     * read. Its position and limit aren't changed.
+     * @throws NullPointerException The parameter {@code buffer} is null.
+     */
+    public void Reset(ByteBuffer buffer) {
+      if (buffer == null) {
+        throw new NullPointerException("buffer");
+      }
+      // Words are read with the first byte in the lowest bits
+      this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      this.pos = 0;
+      this.limit = buffer.limit();
+      this.markStart = 0;
+      this.haveMark = false;
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     * @return The number of bytes read.
+     */
+    public long GetByteCount() {
+      return this.pos;
+    }
+
+    /**
+     * Gets the number of characters read so far, which is the same as the
+     * number of bytes.
+     * @return The number of characters read.
+     */
+    public long GetCharCount() {
+      return this.pos;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int ReadChar() {
+      if (this.pos >= this.limit) {
+        return -1;
+      }
+      int b = this.buffer.get(this.pos++) & 0xff;
+      return (b < 0x80) ? b : 0xfffd;
+    }
+
+    /**
+     * Not documented yet.
+     * @param buf The parameter {@code buf} is a.getInt32()[] object.
+     * @param offset The parameter {@code offset} is a 32-bit signed integer.
+     * @param unitCount The parameter {@code unitCount} is a 32-bit signed
+     * integer.
+     * @return A 32-bit signed integer.
+     * @throws NullPointerException The parameter {@code buf} is null.
+     */
+    public int Read(int[] buf, int offset, int unitCount) {
+      if (buf == null) {
+        throw new NullPointerException("buf");
+      }
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset(" + offset +
+          ") is less than 0");
+      }
+      if (unitCount < 0) {
+        throw new IllegalArgumentException("unitCount(" + unitCount +
+          ") is less than 0");
+      }
+      if (buf.length - offset < unitCount) {
+        throw new IllegalArgumentException("buf's length minus " + offset + "(" +
+          (buf.length - offset) + ") is less than " + unitCount);
+      }
+      if (unitCount == 0) {
+        return 0;
+      }
+      int count = Math.min(unitCount, this.limit - this.pos);
+      if (count <= 0) {
+        return -1;
+      }
+      for (int i = 0; i < count; ++i) {
+        int b = this.buffer.get(this.pos++) & 0xff;
+        buf[offset + i] = (b < 0x80) ? b : 0xfffd;
+      }
+      return count;
+    }
+
+    /**
+     * Reads characters until one for which the specified predicate returns
+     * true. If the predicate is a CodePointTable with a word check, runs of
+     * characters are skipped eight bytes at a time.
+     * @param delimiter A predicate that returns true for the characters that
+     * end the run.
+     * @param builder A string builder to which the characters before the
+     * delimiter are appended, or null.
+     * @return The delimiter, which was read, or -1 if the end of the input was
+     * reached first.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    public int ScanUntil(IntPredicate delimiter, StringBuilder builder) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      int index = this.IndexOfDelimiter(delimiter, this.pos);
+      if (builder != null && index > this.pos) {
+        this.AppendRun(builder, this.pos, index);
+      }
+      if (index >= this.limit) {
+        this.pos = this.limit;
+        return -1;
+      }
+      this.pos = index + 1;
+      return this.CharAt(index);
+    }
+
+    /**
+     * Reads a run of characters that ends with the specified character and
+     * returns the characters before it as a string, copied from the buffer in
+     * one step.
+     * @param delimiter A predicate that returns true for the characters that
+     * end the run, including {@code end}.
+     * @param end The character expected to end the run.
+     * @return The characters before {@code end}, which was read, or null if
+     * the run is empty or ends otherwise, in which case nothing was read.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    public String ScanString(IntPredicate delimiter, int end) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      int start = this.pos;
+      int index = this.IndexOfDelimiter(delimiter, start);
+      if (index == start || index >= this.limit ||
+        this.CharAt(index) != end) {
+        return null;
+      }
+      int count = index - start;
+      String str;
+      if (this.buffer.hasArray()) {
+        str = new String(
+          this.buffer.array(),
+          this.buffer.arrayOffset() + start,
+          count,
+          StandardCharsets.US_ASCII);
+      } else {
+        if (this.bytes.length < count) {
+          this.bytes = new byte[Math.max(count, this.bytes.length * 2)];
+        }
+        for (int i = 0; i < count; ++i) {
+          this.bytes[i] = this.buffer.get(start + i);
+        }
+        str = new String(this.bytes, 0, count, StandardCharsets.US_ASCII);
+      }
+      this.pos = index + 1;
+      return str;
+    }
+
+    private int CharAt(int index) {
+      int b = this.buffer.get(index) & 0xff;
+      return (b < 0x80) ? b : 0xfffd;
+    }
+
+    // Finds the first character from the specified index on that
+    // is in the set, without reading it. Returns the limit if there
+    // is none.
+    private int IndexOfDelimiter(IntPredicate delimiter, int start) {
+      ByteBuffer buf = this.buffer;
+      int i = start;
+      int end = this.limit;
+      if (delimiter instanceof CodePointTable &&
+        ((CodePointTable)delimiter).HasWordCheck()) {
+        CodePointTable table = (CodePointTable)delimiter;
+        while (true) {
+          // Skip whole words without flagged bytes
+          long flags = 0;
+          while (i <= end - 8) {
+            flags = table.FlagBytes(buf.getLong(i));
+            if (flags != 0) {
+              break;
+            }
+            i += 8;
+          }
+          if (flags != 0) {
+            i += Long.numberOfTrailingZeros(flags) >> 3;
+          } else {
+            // Fewer than eight bytes left; check them one at a time,
+            // stopping at bytes 0x80 and above as the word check does
+            while (i < end) {
+              byte b = buf.get(i);
+              if (b < 0 || table.test(b)) {
+                break;
+              }
+              ++i;
+            }
+          }
+          if (i >= end || table.test(this.CharAt(i))) {
+            return i;
+          }
+          // Flagged, but not in the set
+          ++i;
+        }
+      }
+      while (i < end && !delimiter.test(this.CharAt(i))) {
+        ++i;
+      }
+      return i;
+    }
+
+    // Appends the characters of a run of bytes to the builder
+    private void AppendRun(StringBuilder builder, int start, int end) {
+      int count = end - start;
+      if (this.chars.length < count) {
+        this.chars = new char[Math.max(count, this.chars.length * 2)];
+      }
+      char[] run = this.chars;
+      ByteBuffer buf = this.buffer;
+      for (int i = 0; i < count; ++i) {
+        byte b = buf.get(start + i);
+        run[i] = (b >= 0) ? (char)b : (char)0xfffd;
+      }
+      builder.append(run, 0, count);
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int GetMarkPosition() {
+      return this.pos - this.markStart;
+    }
+
+    /**
+     * Not documented yet.
+     * @param count The parameter {@code count} is a 32-bit signed integer.
+     */
+    public void MoveBack(int count) {
+      if (count < 0) {
+        throw new IllegalArgumentException("count(" + count +
+          ") is not greater or equal to 0");
+      }
+      if (this.haveMark && this.pos - this.markStart >= count) {
+        this.pos -= count;
+        return;
+      }
+      throw new IllegalStateException();
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int SetHardMark() {
+      this.markStart = this.pos;
+      this.haveMark = true;
+      return 0;
+    }
+
+    /**
+     * Not documented yet.
+     * @param pos The parameter {@code pos} is a 32-bit signed integer.
+     */
+    public void SetMarkPosition(int pos) {
+      if (!this.haveMark || pos < 0 || pos > this.limit - this.markStart) {
+        throw new IllegalStateException();
+      }
+      this.pos = this.markStart + pos;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int SetSoftMark() {
+      if (!this.haveMark) {
+        this.SetHardMark();
+      }
+      return this.GetMarkPosition();
+    }
+  }
@@ -0,0 +1,276 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.lang.ref.*;
+import java.nio.channels.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
+
+import com.upokecenter.text.*;
+import com.upokecenter.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A character input whose characters are decompressed and decoded on a
+   * separate thread. That thread inflates a gzip or zlib stream, decodes it
+   * into blocks of code points, and hands the blocks over through a small
+   * ring, so that decompression and decoding overlap with parsing. Reading
+   * from this object waits only while the ring is empty. The stream is
+   * closed when the thread finishes; if this object is closed or becomes
+   * unreachable first, the thread stops on its own.
+   */
+  final class BackgroundCharacterInput implements ICharacterInput, Closeable {
+    private static final int BlockSize = 1 << 14;
+    private static final int BlockCount = 4;
+    private static final int StreamBufferSize = 1 << 16;
+
+    // Longest time either thread sleeps before checking the ring again
+    private static final long WaitNanos = 1000000L;
+
+    // Ring of blocks with one producer and one consumer. It doesn't
+    // refer to the input object, so that the decoding thread can tell
+    // when the input is no longer in use.
+    private static final class Ring {
+      private final int[][] blocks = new int[BlockCount][BlockSize];
+      private final int[] lengths = new int[BlockCount];
+
+      // Number of blocks filled by the producer so far
+      private volatile long produced;
+
+      // Number of blocks given back by the consumer so far
+      private volatile long consumed;
+
+      private volatile boolean finished;
+
+      // Whether the consumer stopped reading
+      private volatile boolean closed;
+
+      private volatile Throwable error;
+      private volatile Thread producerThread;
+      private volatile Thread consumerThread;
+    }
+
+    private static final class Producer implements Runnable {
+      private final Ring ring;
+      private final InputStream stream;
+      private final boolean gzip;
+      private final boolean ascii;
+      private final WeakReference<BackgroundCharacterInput> owner;
+
+      public Producer(
+        Ring ring,
+        InputStream stream,
+        boolean gzip,
+        boolean ascii,
+        BackgroundCharacterInput owner) {
+        this.ring = ring;
+        this.stream = stream;
+        this.gzip = gzip;
+        this.ascii = ascii;
+        this.owner = new WeakReference<BackgroundCharacterInput>(owner);
+      }
+
+      public void run() {
+        Ring ring = this.ring;
+        ring.producerThread = Thread.currentThread();
+        InputStream input = this.stream;
+        Inflater inflater = null;
+        try {
+          if (this.gzip) {
+            input = new GZIPInputStream(input, StreamBufferSize);
+          } else {
+            inflater = new Inflater();
+            input = new InflaterInputStream(input, inflater, StreamBufferSize);
+          }
+          IByteReader reader = new ChannelReader(Channels.newChannel(input));
+          ICharacterInput decoder = this.ascii ?
+            Encodings.GetDecoderInput(
+              Encodings.GetEncoding("us-ascii", true),
+              reader) : new Utf8CharacterInput(reader);
+          while (!ring.closed) {
+            long next = ring.produced;
+            while (next - ring.consumed == BlockCount) {
+              // Ring is full
+              if (ring.closed || this.owner.get() == null) {
+                return;
+              }
+              LockSupport.parkNanos(this, WaitNanos);
+            }
+            int slot = (int)(next % BlockCount);
+            int count = decoder.Read(ring.blocks[slot], 0, BlockSize);
+            if (count <= 0) {
+              break;
+            }
+            ring.lengths[slot] = count;
+            ring.produced = next + 1;
+            LockSupport.unpark(ring.consumerThread);
+          }
+        } catch (Throwable ex) {
+          ring.error = ex;
+        } finally {
+          try {
+            input.close();
+          } catch (IOException ex) {
+            if (ring.error == null) {
+              ring.error = ex;
+            }
+          }
+          if (inflater != null) {
+            // Not ended by InflaterInputStream, since it was
+            // passed in
+            inflater.end();
+          }
+          ring.finished = true;
+          LockSupport.unpark(ring.consumerThread);
+        }
+      }
+    }
+
+    private final Ring ring;
+    private int[] block;
+    private int index;
+    private int limit;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.BackgroundCharacterInput} class and starts the
+     * thread that decodes the stream.
+     * @param stream A stream of compressed bytes.
+     * @param gzip True if the stream is in the gzip format; false if it's in
+     * the zlib format (deflate with a zlib header).
+     * @param ascii True if the decompressed bytes are decoded as US-ASCII;
+     * false if they're decoded as UTF-8.
+     * @throws NullPointerException The parameter {@code stream} is null.
+     */
+    public BackgroundCharacterInput(
+      InputStream stream,
+      boolean gzip,
+      boolean ascii) {
+      if (stream == null) {
+        throw new NullPointerException("stream");
+      }
+      this.ring = new Ring();
+      Thread thread = new Thread(
+        new Producer(this.ring, stream, gzip, ascii, this),
+        "RDF input decoder");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    /**
+     * Stops reading the stream. The decoding thread stops and closes the stream
+     * as soon as it's done with the block it's decoding, if any, and this
+     * object reads no more characters. Does nothing if this object is
+     * already closed.
+     */
+    public void close() {
+      Ring ring = this.ring;
+      ring.closed = true;
+      this.block = null;
+      this.index = 0;
+      this.limit = 0;
+      LockSupport.unpark(ring.producerThread);
+    }
+
+    // Gives the current block back to the producer, if any, and waits
+    // for the next one. Returns false at the end of the stream.
+    private boolean NextBlock() {
+      Ring ring = this.ring;
+      if (ring.closed) {
+        return false;
+      }
+      if (this.block != null) {
+        this.block = null;
+        ring.consumed = ring.consumed + 1;
+        LockSupport.unpark(ring.producerThread);
+      }
+      long next = ring.consumed;
+      while (ring.produced == next) {
+        if (ring.finished) {
+          if (ring.produced != next) {
+            break;
+          }
+          Throwable error = ring.error;
+          if (error instanceof IOException) {
+            throw new UncheckedIOException((IOException)error);
+          } else if (error instanceof RuntimeException) {
+            throw (RuntimeException)error;
+          } else if (error instanceof Error) {
+            throw (Error)error;
+          }
+          return false;
+        }
+        ring.consumerThread = Thread.currentThread();
+        if (ring.produced == next && !ring.finished) {
+          LockSupport.parkNanos(this, WaitNanos);
+        }
+      }
+      int slot = (int)(next % BlockCount);
+      this.block = ring.blocks[slot];
+      this.index = 0;
+      this.limit = ring.lengths[slot];
+      return true;
+    }
+
+    /**
+     * Reads a Unicode character from the stream.
+     * @return The Unicode code point read, or -1 at the end of the stream.
+     * @throws UncheckedIOException An I/O error occurred while reading or
+     * decompressing the stream.
+     */
+    public int ReadChar() {
+      if (this.index >= this.limit && !this.NextBlock()) {
+        return -1;
+      }
+      return this.block[this.index++];
+    }
+
+    /**
+     * Reads a sequence of Unicode characters from the stream.
+     * @param buf An array that receives the characters read.
+     * @param offset Index in the array where the first character is stored.
+     * @param unitCount Maximum number of characters to read.
+     * @return The number of characters read, or -1 at the end of the stream.
+     * @throws NullPointerException The parameter {@code buf} is null.
+     * @throws UncheckedIOException An I/O error occurred while reading or
+     * decompressing the stream.
+     */
+    public int Read(int[] buf, int offset, int unitCount) {
+      if (buf == null) {
+        throw new NullPointerException("buf");
+      }
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset(" + offset +
+          ") is less than 0");
+      }
+      if (unitCount < 0) {
+        throw new IllegalArgumentException("unitCount(" + unitCount +
+          ") is less than 0");
+      }
+      if (buf.length - offset < unitCount) {
+        throw new IllegalArgumentException("buf's length minus " + offset + "(" +
+          (buf.length - offset) + ") is less than " + unitCount);
+      }
+      if (unitCount == 0) {
+        return 0;
+      }
+      int total = 0;
+      while (total < unitCount) {
+        if (this.index >= this.limit && !this.NextBlock()) {
+          break;
+        }
+        int count = Math.min(unitCount - total, this.limit - this.index);
+        System.arraycopy(this.block, this.index, buf, offset + total, count);
+        this.index += count;
+        total += count;
+      }
+      return (total == 0) ? -1 : total;
+    }
+  }
@@ -0,0 +1,82 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Assigns blank node labels that are valid under N-Triples at the time each
+   * blank node is first read, so that triples need no relabelling after
+   * parsing. Labels from the document are kept where possible; others are
+   * replaced with generated labels of the form "b" followed by a number.
+   */
+  final class BlankNodeLabeler {
+    // Document labels that were kept as they are
+    private final Set<String> keptLabels = new HashSet<String>();
+
+    // Generated labels are "b0" through "b" + (nextIndex - 1)
+    private int nextIndex;
+
+    /**
+     * Gets the label to use for a blank node label read from the document. This
+     * method is called only once for each distinct document label.
+     * @param label A blank node label read from the document.
+     * @return A label valid under N-Triples and distinct from all labels
+     * returned so far.
+     */
+    public String FromDocumentLabel(String label) {
+      if (RDFInternal.IsValidNTriplesLabel(label) &&
+        !this.IsGeneratedLabel(label)) {
+        this.keptLabels.add(label);
+        return label;
+      }
+      return this.NewLabel();
+    }
+
+    /**
+     * Generates a label for a blank node that has no label in the document.
+     * @return A label valid under N-Triples and distinct from all labels
+     * returned so far.
+     */
+    public String NewLabel() {
+      while (true) {
+        String label = "b" + Integer.toString(this.nextIndex);
+        ++this.nextIndex;
+        if (!this.keptLabels.contains(label)) {
+          return label;
+        }
+      }
+    }
+
+    /**
+     * Resets this object to its initial state.
+     */
+    public void Clear() {
+      this.keptLabels.clear();
+      this.nextIndex = 0;
+    }
+
+    // Returns whether the label was already returned by NewLabel
+    private boolean IsGeneratedLabel(String label) {
+      int length = label.length();
+      if (length < 2 || length > 11 || label.charAt(0) != 'b' ||
+        (length > 2 && label.charAt(1) == '0')) {
+        return false;
+      }
+      long value = 0;
+      for (int i = 1; i < length; ++i) {
+        char c = label.charAt(i);
+        if (c < '0' || c > '9') {
+          return false;
+        }
+        value = (value * 10) + (c - '0');
+      }
+      return value < this.nextIndex;
+    }
+  }
@@ -0,0 +1,107 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A byte reader over a sequence of byte buffers, read one after another.
+   * Used for memory-mapped files, which are mapped in several segments when
+   * they're too big for one buffer.
+   */
+  final class ByteBufferReader implements IByteBlockReader {
+    // Size of each mapped segment of a file
+    private static final int SegmentSize = 1 << 30;
+
+    private final ByteBuffer[] buffers;
+    private int index;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.ByteBufferReader} class.
+     * @param buffers The buffers to read, in order. Relative reads are done on
+     * them, so their positions are moved.
+     */
+    public ByteBufferReader(ByteBuffer... buffers) {
+      this.buffers = buffers;
+    }
+
+    /**
+     * Maps the whole of a file into memory, in segments of at most 1 GiB each,
+     * so that files of any size can be mapped. The file is closed before this
+     * method returns; the mappings stay valid until they're garbage
+     * collected.
+     * @param path The file to map.
+     * @return The mapped segments, in order.
+     * @throws NullPointerException The parameter {@code path} is null.
+     * @throws IOException An I/O error occurred.
+     */
+    public static ByteBuffer[] MapFile(Path path) throws IOException {
+      if (path == null) {
+        throw new NullPointerException("path");
+      }
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+        long size = channel.size();
+        int count = (int)((size + SegmentSize - 1) / SegmentSize);
+        ByteBuffer[] segments = new ByteBuffer[count];
+        for (int i = 0; i < count; ++i) {
+          long start = (long)i * SegmentSize;
+          segments[i] = channel.map(
+            FileChannel.MapMode.READ_ONLY,
+            start,
+            Math.min(SegmentSize, size - start));
+        }
+        return segments;
+      } finally {
+        channel.close();
+      }
+    }
+
+    /**
+     * Reads a byte.
+     * @return The byte read, from 0 to 255, or -1 at the end of the input.
+     */
+    public int read() {
+      while (this.index < this.buffers.length) {
+        ByteBuffer buffer = this.buffers[this.index];
+        if (buffer.hasRemaining()) {
+          return buffer.get() & 0xff;
+        }
+        ++this.index;
+      }
+      return -1;
+    }
+
+    /**
+     * Reads up to the specified number of bytes into an array.
+     * @param bytes The array that receives the bytes.
+     * @param offset Index in the array of the first byte to store.
+     * @param length Maximum number of bytes to read.
+     * @return The number of bytes read, or -1 at the end of the input.
+     */
+    public int Read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      while (this.index < this.buffers.length) {
+        ByteBuffer buffer = this.buffers[this.index];
+        int count = Math.min(length, buffer.remaining());
+        if (count > 0) {
+          buffer.get(bytes, offset, count);
+          return count;
+        }
+        ++this.index;
+      }
+      return -1;
+    }
+  }
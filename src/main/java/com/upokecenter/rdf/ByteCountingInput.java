@@ -0,0 +1,86 @@
+package com.upokecenter.rdf;
+
+import com.upokecenter.text.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A character input that counts the characters read from it and how many
+   * bytes they take up when encoded in UTF-8. For input decoded from UTF-8
+   * or ASCII bytes, the latter is the number of bytes decoded so far.
+   */
+  final class ByteCountingInput implements ICharacterInput, IByteCounter {
+    private final ICharacterInput source;
+    private long byteCount;
+    private long charCount;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.ByteCountingInput} class.
+     * @param source The input to read characters from.
+     * @throws NullPointerException The parameter {@code source} is null.
+     */
+    public ByteCountingInput(ICharacterInput source) {
+      if (source == null) {
+        throw new NullPointerException("source");
+      }
+      this.source = source;
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     * @return The number of bytes read.
+     */
+    public long GetByteCount() {
+      return this.byteCount;
+    }
+
+    /**
+     * Gets the number of characters (Unicode code points) read so far.
+     * @return The number of characters read.
+     */
+    public long GetCharCount() {
+      return this.charCount;
+    }
+
+    private static int Utf8Length(int ch) {
+      return (ch < 0x80) ? 1 : ((ch < 0x800) ? 2 : ((ch < 0x10000) ? 3 : 4));
+    }
+
+    /**
+     * Reads a Unicode character from the source.
+     * @return The Unicode code point read, or -1 at the end of the input.
+     */
+    public int ReadChar() {
+      int ch = this.source.ReadChar();
+      if (ch >= 0) {
+        this.byteCount += Utf8Length(ch);
+        ++this.charCount;
+      }
+      return ch;
+    }
+
+    /**
+     * Reads a sequence of Unicode characters from the source.
+     * @param chars An array that receives the characters read.
+     * @param index Index in the array where the first character is stored.
+     * @param length Maximum number of characters to read.
+     * @return The number of characters read, or -1 at the end of the input.
+     */
+    public int Read(int[] chars, int index, int length) {
+      int count = this.source.Read(chars, index, length);
+      for (int i = 0; i < count; ++i) {
+        this.byteCount += Utf8Length(chars[index + i]);
+      }
+      if (count > 0) {
+        this.charCount += count;
+      }
+      return count;
+    }
+  }
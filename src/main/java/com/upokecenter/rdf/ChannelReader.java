@@ -0,0 +1,116 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A byte reader over a readable byte channel. Bytes are read from the
+   * channel in bulk into a direct buffer, which is reused for every read.
+   */
+  final class ChannelReader implements IByteBlockReader {
+    private static final int BufferSize = 1 << 16;
+
+    // Number of reads in a row that may return no bytes before the
+    // channel is taken to be stuck; a channel in blocking mode reads
+    // at least one byte unless it's at its end
+    private static final int MaxZeroReads = 100;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private boolean endOfInput;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.ChannelReader} class.
+     * @param channel A channel in blocking mode. It isn't closed by this
+     * object.
+     * @throws NullPointerException The parameter {@code channel} is null.
+     * @throws IllegalArgumentException The parameter {@code channel} is a
+     * selectable channel in non-blocking mode.
+     */
+    public ChannelReader(ReadableByteChannel channel) {
+      if (channel == null) {
+        throw new NullPointerException("channel");
+      }
+      if (channel instanceof SelectableChannel &&
+        !((SelectableChannel)channel).isBlocking()) {
+        throw new IllegalArgumentException(
+          "channel is in non-blocking mode");
+      }
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocateDirect(BufferSize);
+      ((Buffer)this.buffer).limit(0);
+    }
+
+    // Refills the buffer if it's empty; returns false at the end
+    // of the channel
+    private boolean Fill() {
+      if (this.buffer.hasRemaining()) {
+        return true;
+      }
+      if (this.endOfInput) {
+        return false;
+      }
+      ((Buffer)this.buffer).clear();
+      try {
+        int count = 0;
+        int zeroReads = 0;
+        while (count == 0) {
+          if (zeroReads == MaxZeroReads) {
+            throw new IOException("The channel returned no bytes " +
+              MaxZeroReads + " times in a row");
+          }
+          count = this.channel.read(this.buffer);
+          ++zeroReads;
+        }
+        if (count < 0) {
+          this.endOfInput = true;
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      } finally {
+        ((Buffer)this.buffer).flip();
+      }
+      return this.buffer.hasRemaining();
+    }
+
+    /**
+     * Reads a byte.
+     * @return The byte read, from 0 to 255, or -1 at the end of the input.
+     * @throws UncheckedIOException An I/O error occurred, or the channel
+     * returned no bytes too many times in a row.
+     */
+    public int read() {
+      return this.Fill() ? (this.buffer.get() & 0xff) : -1;
+    }
+
+    /**
+     * Reads up to the specified number of bytes into an array.
+     * @param bytes The array that receives the bytes.
+     * @param offset Index in the array of the first byte to store.
+     * @param length Maximum number of bytes to read.
+     * @return The number of bytes read, or -1 at the end of the input.
+     * @throws UncheckedIOException An I/O error occurred, or the channel
+     * returned no bytes too many times in a row.
+     */
+    public int Read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!this.Fill()) {
+        return -1;
+      }
+      int count = Math.min(length, this.buffer.remaining());
+      this.buffer.get(bytes, offset, count);
+      return count;
+    }
+  }
@@ -22,6 +22,7 @@ import com.upokecenter.text.*;
 
     private int offset;
     private ICharacterInput reader;
+    private boolean skipBom;
 
     // <xmlbegin id='0'/>
     // <xmlend/>
@@ -164,7 +165,10 @@ import com.upokecenter.text.*;
     // <summary>Initializes a new instance of the
     // <see cref='PeterO.Rdf.CharacterReader'/>.</summary>
     // <param name='stream'>A readable data stream.</param>
-    // <param name='mode'>A 32-bit signed integer.</param>
+    // <param name='mode'>A 32-bit signed integer. If 0, the stream
+    // is declared to be in UTF-8 (as Turtle and N-Triples are), so
+    // the encoding isn't detected and a byte-order mark, if any, is
+    // skipped.</param>
     // <param name='errorThrow'>A Boolean Object.</param>
     // <param name='dontSkipUtf8Bom'>Another Boolean Object.</param>
     // <exception cref="NullPointerException">The parameter
@@ -183,10 +187,18 @@ import com.upokecenter.text.*;
       this.dontSkipUtf8Bom = dontSkipUtf8Bom;
       this.str = "";
       this.strLength = -1;
+      if (mode == 0) {
+        // UTF-8 only, so decode from the start without detecting
+        // the encoding
+        this.reader = new Utf8Reader(this.stream, errorThrow);
+        this.skipBom = true;
+      }
     }
 
     private interface IByteReader {
       int read();
+
+      int read(byte[] bytes, int offset, int length);
     }
 
     // <include file='../../docs.xml'
@@ -217,7 +229,20 @@ import com.upokecenter.text.*;
           (chars.length - index) + ") is less than " + length);
       }
       int count = 0;
-      for (int i = 0; i < length; ++i) {
+      if (length > 0 && (this.reader == null || this.skipBom)) {
+        // Detects the encoding or skips the byte-order mark
+        int c = this.ReadChar();
+        if (c < 0) {
+          return 0;
+        }
+        chars[index] = c;
+        ++count;
+      }
+      if (this.reader != null) {
+        // Decode the rest in one call
+        return count + this.reader.Read(chars, index + count, length - count);
+      }
+      for (int i = count; i < length; ++i) {
         int c = this.ReadChar();
         if (c < 0) {
           return count;
@@ -232,7 +257,14 @@ import com.upokecenter.text.*;
     // path='docs/doc[@name="M:PeterO.Rdf.CharacterReader.ReadChar"]/*'/>
     public int ReadChar() {
       if (this.reader != null) {
-        return this.reader.ReadChar();
+        int c = this.reader.ReadChar();
+        if (this.skipBom) {
+          this.skipBom = false;
+          if (c == 0xfeff) {
+            c = this.reader.ReadChar();
+          }
+        }
+        return c;
       }
       if (this.stream != null) {
         return this.DetectUnicodeEncoding();
@@ -455,16 +487,6 @@ import com.upokecenter.text.*;
       }
       Utf8Reader utf8reader;
       switch (mode) {
-        case 0:
-          // UTF-8 only
-          utf8reader = new Utf8Reader(this.stream, this.errorThrow);
-          this.reader = utf8reader;
-          c1 = utf8reader.ReadChar();
-          if (c1 == 0xfeff) {
-            // Skip BOM
-            c1 = utf8reader.ReadChar();
-          }
-          return c1;
         case 1:
         case 3:
           c2 = this.DetectUtf8OrUtf16(c1);
@@ -526,6 +548,10 @@ import com.upokecenter.text.*;
         this.savedLength += 3;
       }
 
+      public boolean IsEmpty() {
+        return this.savedLength == 0;
+      }
+
       public int Read(IByteReader input) {
         if (this.savedLength > 0) {
           int ret = this.saved[--this.savedLength];
@@ -671,16 +697,24 @@ import com.upokecenter.text.*;
     }
 
     private static final class Utf8Reader implements ICharacterInput {
+      private static final int BufferSize = 8192;
+
       private final IByteReader stream;
       private final SavedState state;
       private final boolean errorThrow;
       private int lastChar;
 
+      // Bytes read from the stream in blocks, not yet decoded
+      private final byte[] buffer;
+      private int bufferPos;
+      private int bufferEnd;
+
       public Utf8Reader(IByteReader stream, boolean errorThrow) {
         this.stream = stream;
         this.lastChar = -1;
         this.state = new SavedState();
         this.errorThrow = errorThrow;
+        this.buffer = new byte[BufferSize];
       }
 
       public void Unget(int ch) {
@@ -703,7 +737,7 @@ import com.upokecenter.text.*;
             b = this.lastChar;
             this.lastChar = -1;
           } else {
-            b = this.state.Read(this.stream);
+            b = this.ReadByte();
           }
           if (b < 0) {
             if (bytesNeeded != 0) {
@@ -768,14 +802,94 @@ import com.upokecenter.text.*;
         }
       }
 
+      private int ReadByte() {
+        if (!this.state.IsEmpty()) {
+          return this.state.Read(this.stream);
+        }
+        if (this.bufferPos == this.bufferEnd) {
+          int count = this.stream.read(this.buffer, 0, this.buffer.length);
+          if (count <= 0) {
+            return -1;
+          }
+          this.bufferPos = 0;
+          this.bufferEnd = count;
+        }
+        return this.buffer[this.bufferPos++] & 0xff;
+      }
+
       public int Read(int[] chars, int index, int length) {
+        byte[] buf = this.buffer;
         int count = 0;
-        for (int i = 0; i < length; ++i) {
+        while (count < length) {
+          if (this.lastChar == -1 && this.state.IsEmpty()) {
+            // Decode the sequences that lie wholly in the buffer;
+            // anything else, including invalid sequences, is left
+            // to ReadChar
+            int pos = this.bufferPos;
+            int end = this.bufferEnd;
+            while (count < length && pos < end) {
+              int b = buf[pos];
+              if (b >= 0) {
+                chars[index + count] = b;
+                ++count;
+                ++pos;
+                continue;
+              }
+              b &= 0xff;
+              if (b >= 0xc2 && b <= 0xdf) {
+                if (pos + 1 >= end) {
+                  break;
+                }
+                int b1 = buf[pos + 1] & 0xff;
+                if (b1 < 0x80 || b1 > 0xbf) {
+                  break;
+                }
+                chars[index + count] = ((b - 0xc0) << 6) | (b1 - 0x80);
+                pos += 2;
+              } else if (b >= 0xe0 && b <= 0xef) {
+                if (pos + 2 >= end) {
+                  break;
+                }
+                int b1 = buf[pos + 1] & 0xff;
+                int b2 = buf[pos + 2] & 0xff;
+                if (b1 < ((b == 0xe0) ? 0xa0 : 0x80) ||
+                  b1 > ((b == 0xed) ? 0x9f : 0xbf) ||
+                  b2 < 0x80 || b2 > 0xbf) {
+                  break;
+                }
+                chars[index + count] = ((b - 0xe0) << 12) |
+                  ((b1 - 0x80) << 6) | (b2 - 0x80);
+                pos += 3;
+              } else if (b >= 0xf0 && b <= 0xf4) {
+                if (pos + 3 >= end) {
+                  break;
+                }
+                int b1 = buf[pos + 1] & 0xff;
+                int b2 = buf[pos + 2] & 0xff;
+                int b3 = buf[pos + 3] & 0xff;
+                if (b1 < ((b == 0xf0) ? 0x90 : 0x80) ||
+                  b1 > ((b == 0xf4) ? 0x8f : 0xbf) ||
+                  b2 < 0x80 || b2 > 0xbf || b3 < 0x80 || b3 > 0xbf) {
+                  break;
+                }
+                chars[index + count] = ((b - 0xf0) << 18) |
+                  ((b1 - 0x80) << 12) | ((b2 - 0x80) << 6) | (b3 - 0x80);
+                pos += 4;
+              } else {
+                break;
+              }
+              ++count;
+            }
+            this.bufferPos = pos;
+            if (count == length) {
+              break;
+            }
+          }
           int c = this.ReadChar();
           if (c < 0) {
-            return count;
+            break;
           }
-          chars[index + i] = c;
+          chars[index + count] = c;
           ++count;
         }
         return count;
@@ -796,5 +910,13 @@ import com.upokecenter.text.*;
           throw new IllegalStateException(ex.getMessage(), ex);
         }
       }
+
+      public int read(byte[] bytes, int offset, int length) {
+        try {
+          return this.stream.read(bytes, offset, length);
+        } catch (IOException ex) {
+          throw new IllegalStateException(ex.getMessage(), ex);
+        }
+      }
     }
   }
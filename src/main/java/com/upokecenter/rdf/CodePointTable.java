@@ -0,0 +1,149 @@
+package com.upokecenter.rdf;
+
+import java.util.function.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A code point predicate whose results for ASCII characters are looked up
+   * in a table computed in advance; other code points are passed to the
+   * wrapped predicate. Because the parsers' delimiter sets all share this
+   * class, the predicate call in a scanning loop has only one receiver type
+   * and can be inlined.
+   * <p>The table can also check eight bytes of ASCII text at once, packed
+   * in a {@code long}; that check flags every byte outside a range of
+   * characters, plus up to a few listed characters within it. The range and
+   * the list are chosen in advance so that every character in the set is
+   * flagged and few others are.</p>
+   */
+  final class CodePointTable implements IntPredicate {
+    private static final long Ones = 0x0101010101010101L;
+    private static final long HighBits = 0x8080808080808080L;
+
+    // Most characters in the range that the word check can also test
+    // for one by one
+    private static final int MaxListed = 6;
+
+    // Most printable characters outside the set that the word check
+    // can flag before it isn't worth using
+    private static final int MaxFalseFlags = 4;
+
+    private final boolean[] ascii;
+    private final IntPredicate predicate;
+
+    // Values for the word check: bytes below the range, above
+    // it, or equal to one of the listed characters are flagged
+    private final boolean wordCheck;
+    private final long lowWord;
+    private final long highWord;
+    private final long[] listed;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.CodePointTable} class.
+     * @param predicate A predicate that returns true for the code points in
+     * the set.
+     * @throws NullPointerException The parameter {@code predicate} is null.
+     */
+    public CodePointTable(IntPredicate predicate) {
+      if (predicate == null) {
+        throw new NullPointerException("predicate");
+      }
+      this.predicate = predicate;
+      this.ascii = new boolean[0x80];
+      for (int i = 0; i < 0x80; ++i) {
+        this.ascii[i] = predicate.test(i);
+      }
+      // Start with the range from the first to the last character
+      // not in the set, then narrow it from above until few enough
+      // characters in the set are left inside it
+      int low = 0;
+      while (low < 0x80 && this.ascii[low]) {
+        ++low;
+      }
+      int high = 0x7f;
+      while (high >= low && (this.ascii[high] ||
+        this.CountInSet(low, high) > MaxListed)) {
+        --high;
+      }
+      int falseFlags = 0;
+      for (int i = 0x20; i < 0x7f; ++i) {
+        if (!this.ascii[i] && (i < low || i > high)) {
+          ++falseFlags;
+        }
+      }
+      this.wordCheck = high >= low && falseFlags <= MaxFalseFlags;
+      if (this.wordCheck) {
+        this.lowWord = Ones * low;
+        this.highWord = Ones * (0x7f - high);
+        this.listed = new long[this.CountInSet(low, high)];
+        int index = 0;
+        for (int i = low; i <= high; ++i) {
+          if (this.ascii[i]) {
+            this.listed[index++] = Ones * i;
+          }
+        }
+      } else {
+        this.lowWord = 0;
+        this.highWord = 0;
+        this.listed = null;
+      }
+    }
+
+    private int CountInSet(int low, int high) {
+      int count = 0;
+      for (int i = low; i <= high; ++i) {
+        if (this.ascii[i]) {
+          ++count;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Gets a value indicating whether the FlagBytes method can be used with
+     * this set.
+     * @return Either {@code true} or {@code false}.
+     */
+    public boolean HasWordCheck() {
+      return this.wordCheck;
+    }
+
+    /**
+     * Checks eight bytes at once for characters that may be in the set.
+     * Bytes 0x80 and above are always flagged.
+     * @param word Eight bytes, the first of them in the lowest eight bits.
+     * @return A value with the top bit of each flagged byte set; the lowest
+     * of them marks the first flagged byte exactly, while later ones may be
+     * set for bytes not flagged. Zero if no byte was flagged.
+     */
+    public long FlagBytes(long word) {
+      // The top bit of each byte is cleared or set before
+      // subtracting or adding, so no byte borrows from or carries
+      // into the next
+      long low7 = word & ~HighBits;
+      long flags = word & HighBits;
+      flags |= ~((low7 | HighBits) - this.lowWord) & HighBits;
+      flags |= (low7 + this.highWord) & HighBits;
+      for (long value : this.listed) {
+        long diff = low7 ^ value;
+        flags |= ~((diff | HighBits) - Ones) & HighBits;
+      }
+      return flags;
+    }
+
+    /**
+     * Determines whether the specified code point is in the set.
+     * @param ch A Unicode code point.
+     * @return Either {@code true} or {@code false}.
+     */
+    public boolean test(int ch) {
+      return ((ch & ~0x7f) == 0) ? this.ascii[ch] : this.predicate.test(ch);
+    }
+  }
@@ -0,0 +1,164 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Decides which triples a parser passes on, according to a
+   * TripleDeduplication strategy.
+   */
+  abstract class DuplicateFilter {
+    /**
+     * Default number of fingerprints kept by the approximate filter (8 MiB of
+     * memory).
+     */
+    static final int DefaultApproximateSlots = 1 << 20;
+
+    /**
+     * Creates a filter for the specified strategy.
+     * @param mode The deduplication strategy.
+     * @param approximateSlots Number of fingerprints kept by the approximate
+     * strategy; rounded up to a power of two.
+     * @return A filter, or null if the strategy is TripleDeduplication.None.
+     */
+    static DuplicateFilter Create(TripleDeduplication mode, int approximateSlots) {
+      if (mode == TripleDeduplication.Exact) {
+        return new ExactFilter();
+      } else if (mode == TripleDeduplication.Approximate) {
+        return new ApproximateFilter(approximateSlots);
+      } else {
+        return null;
+      }
+    }
+
+    /**
+     * Wraps a triple sink so that it receives only the triples the specified
+     * strategy passes on. Each call creates a new filter, so duplicates are
+     * tracked separately for each sink returned.
+     * @param sink The sink to wrap.
+     * @param mode The deduplication strategy.
+     * @param approximateSlots Number of fingerprints kept by the approximate
+     * strategy.
+     * @return The wrapped sink, or {@code sink} itself if the strategy is
+     * TripleDeduplication.None.
+     */
+    static ITripleSink Wrap(
+      final ITripleSink sink,
+      TripleDeduplication mode,
+      int approximateSlots) {
+      final DuplicateFilter filter = Create(mode, approximateSlots);
+      if (filter == null) {
+        return sink;
+      }
+      return new ITripleSink() {
+        public void AddTriple(RDFTriple triple) {
+          if (filter.Add(triple)) {
+            sink.AddTriple(triple);
+          }
+        }
+      };
+    }
+
+    /**
+     * Records the specified triple and returns whether it should be passed on.
+     * @param triple A triple read by the parser.
+     * @return {@code true} if the triple wasn't seen before (or wasn't
+     * remembered); otherwise, {@code false}.
+     */
+    abstract boolean Add(RDFTriple triple);
+
+    private static final class ExactFilter extends DuplicateFilter {
+      private final Set<RDFTriple> seen = new HashSet<RDFTriple>();
+
+      boolean Add(RDFTriple triple) {
+        return this.seen.add(triple);
+      }
+    }
+
+    private static final class ApproximateFilter extends DuplicateFilter {
+      private static final int BucketSize = 4;
+
+      private final long[] slots;
+      private final int mask;
+
+      public ApproximateFilter(int slotCount) {
+        int size = BucketSize;
+        while (size < slotCount && size < (1 << 30)) {
+          size <<= 1;
+        }
+        this.slots = new long[size];
+        this.mask = size - 1;
+      }
+
+      boolean Add(RDFTriple triple) {
+        long fp = Fingerprint(triple);
+        // Zero marks an empty slot
+        fp = (fp == 0) ? 1 : fp;
+        // Each fingerprint can go in any of a bucket of BucketSize
+        // adjacent slots; when the bucket is full, the fingerprint
+        // replaces one chosen from its own bits
+        int start = ((int)(fp >>> 32)) & this.mask & ~(BucketSize - 1);
+        for (int i = start; i < start + BucketSize; ++i) {
+          long slot = this.slots[i];
+          if (slot == fp) {
+            return false;
+          }
+          if (slot == 0) {
+            this.slots[i] = fp;
+            return true;
+          }
+        }
+        this.slots[start + ((int)fp & (BucketSize - 1))] = fp;
+        return true;
+      }
+
+      private static long Fingerprint(RDFTriple triple) {
+        long h = 0xcbf29ce484222325L;
+        h = HashTerm(h, triple.GetSubject());
+        h = HashTerm(h, triple.GetPredicate());
+        h = HashTerm(h, triple.GetObject());
+        // Final mixing step from MurmurHash3
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+      }
+
+      private static long HashTerm(long h, RDFTerm term) {
+        h = (h ^ term.GetKind()) * 0x100000001b3L;
+        // Hashes the value in its parts, as though they were
+        // concatenated
+        String prefix = term.GetValuePrefix();
+        String suffix = term.GetValueSuffix();
+        h = HashChars(HashChars(h, prefix), suffix);
+        h = (h ^ (prefix.length() + suffix.length())) * 0x100000001b3L;
+        String typeOrLanguage = term.GetTypeOrLanguage();
+        if (typeOrLanguage != null) {
+          h = HashString(h, typeOrLanguage);
+        }
+        return h;
+      }
+
+      // 64-bit FNV-1a over the string's code units and length
+      private static long HashString(long h, String str) {
+        return (HashChars(h, str) ^ str.length()) * 0x100000001b3L;
+      }
+
+      private static long HashChars(long h, String str) {
+        int length = str.length();
+        for (int i = 0; i < length; ++i) {
+          h = (h ^ str.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+      }
+    }
+  }
@@ -0,0 +1,27 @@
+package com.upokecenter.rdf;
+
+import com.upokecenter.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A byte reader that can also copy many bytes at a time into an array, which
+   * saves a call per byte.
+   */
+  interface IByteBlockReader extends IByteReader {
+    /**
+     * Reads up to the specified number of bytes into an array.
+     * @param bytes The array that receives the bytes.
+     * @param offset Index in the array of the first byte to store.
+     * @param length Maximum number of bytes to read.
+     * @return The number of bytes read, which is 0 only if {@code length} is
+     * 0, or -1 at the end of the input.
+     */
+    int Read(byte[] bytes, int offset, int length);
+  }
@@ -0,0 +1,20 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * An input that keeps track of how many bytes of the source it has read.
+   */
+  interface IByteCounter {
+    /**
+     * Gets the number of bytes read so far.
+     * @return The number of bytes read.
+     */
+    long GetByteCount();
+  }
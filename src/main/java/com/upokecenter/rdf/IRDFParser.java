@@ -1,5 +1,6 @@
 package com.upokecenter.rdf;
 import java.util.*;
+import java.util.stream.*;
 
 /*
 Written in 2013 by Peter Occil.
@@ -18,4 +19,170 @@ licensed under the Unlicense: https://unlicense.org/
      * @return The return value is not documented yet.
      */
     Set<RDFTriple> Parse();
+
+    /**
+     * Parses the input and adds each RDF triple read to the specified
+     * collection, so that the caller chooses its type and initial capacity.
+     * Duplicate triples are eliminated only as far as the collection itself
+     * does so. This implementation adds the triples that the overload taking
+     * no arguments returns.
+     * @param triples A collection that receives the triples read.
+     * @throws NullPointerException The parameter {@code triples} is null.
+     */
+    default void Parse(Collection<RDFTriple> triples) {
+      if (triples == null) {
+        throw new NullPointerException("triples");
+      }
+      triples.addAll(this.Parse());
+    }
+
+    /**
+     * Parses the input and passes each RDF triple to the specified sink as soon
+     * as it is read, without collecting the triples in a set. Unlike the
+     * other overload, this method doesn't eliminate duplicate triples, and
+     * blank nodes keep the labels the parser assigned to them. This
+     * implementation passes on the triples that the overload taking no
+     * arguments returns, so it holds all of them in memory; a parser can
+     * instead pass each triple on as it's read.
+     * @param sink The object that receives the triples read.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     */
+    default void Parse(ITripleSink sink) {
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      for (RDFTriple triple : this.Parse()) {
+        sink.AddTriple(triple);
+      }
+    }
+
+    /**
+     * Parses the input and passes the RDF triples read to the specified sink in
+     * batches, each held in an array that is reused from batch to batch. As
+     * with the overload that takes a triple sink, duplicate triples are not
+     * eliminated.
+     * @param sink The object that receives the batches of triples read.
+     * @param batchSize The number of triples in each batch except the last.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     * @throws IllegalArgumentException The parameter {@code batchSize} is less
+     * than 1.
+     */
+    default void Parse(ITripleBatchSink sink, int batchSize) {
+      TripleBatcher batcher = new TripleBatcher(sink, batchSize);
+      this.Parse(batcher);
+      batcher.Flush();
+    }
+
+    /**
+     * Parses the input and passes each RDF triple to the specified sink as the
+     * IDs its terms have in the specified term table, adding terms to the
+     * table as they're first read. As with the overload that takes a triple
+     * sink, duplicate triples are not eliminated. The blank nodes read get
+     * IDs distinct from those of blank nodes already in the table, as
+     * described in TermTable. This implementation reads the triples with
+     * that overload and looks up their terms; a parser can instead read IDs
+     * without making RDFTriple and RDFTerm objects.
+     * @param table The table that numbers the terms read.
+     * @param sink The object that receives the triples read.
+     * @throws NullPointerException The parameter {@code table} or {@code
+     * sink} is null.
+     */
+    default void Parse(final TermTable table, final ITripleIdSink sink) {
+      if (table == null) {
+        throw new NullPointerException("table");
+      }
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      // IDs of the blank nodes of this document, by label
+      final Map<String, Integer> blankIds = new HashMap<String, Integer>();
+      this.Parse(new ITripleSink() {
+        public void AddTriple(RDFTriple triple) {
+          sink.AddTriple(
+            this.TermId(triple.GetSubject()),
+            this.TermId(triple.GetPredicate()),
+            this.TermId(triple.GetObject()));
+        }
+
+        private int TermId(RDFTerm term) {
+          if (term.GetKind() != RDFTerm.BLANK) {
+            return table.Add(term);
+          }
+          Integer id = blankIds.get(term.GetValue());
+          if (id == null) {
+            id = table.NewBlankNode(term.GetValue());
+            blankIds.put(term.GetValue(), id);
+          }
+          return id;
+        }
+      });
+    }
+
+    /**
+     * Checks the syntax of the input without creating RDF terms or triples, and
+     * counts the statements and triples read. Checking stops at the first
+     * syntax error. This implementation reads the triples with the overload
+     * of Parse that takes a triple sink, counts each triple as a statement
+     * and doesn't know the error position; a parser can instead check the
+     * syntax without making terms.
+     * @return The result of the check.
+     */
+    default ValidationResult Validate() {
+      final long[] triples = new long[1];
+      try {
+        this.Parse(new ITripleSink() {
+          public void AddTriple(RDFTriple triple) {
+            ++triples[0];
+          }
+        });
+      } catch (ParserException ex) {
+        return new ValidationResult(triples[0], triples[0], -1, ex);
+      }
+      return new ValidationResult(triples[0], triples[0], -1, null);
+    }
+
+    /**
+     * Gets an iterator that parses the input lazily, reading one statement each
+     * time it runs out of triples. As with the overload that takes a sink,
+     * duplicate triples are not eliminated. The iterator's methods throw
+     * ParserException if a syntax error is found. This implementation reads
+     * all the triples, with the overload of Parse that takes a triple sink,
+     * when the iterator is first used.
+     * @return An iterator over the triples in the input.
+     */
+    default Iterator<RDFTriple> ParseIterator() {
+      return new Iterator<RDFTriple>() {
+        private Iterator<RDFTriple> triples;
+
+        private Iterator<RDFTriple> Triples() {
+          if (this.triples == null) {
+            List<RDFTriple> list = new ArrayList<RDFTriple>();
+            IRDFParser.this.Parse(RDFInternal.ToSink(list));
+            this.triples = list.iterator();
+          }
+          return this.triples;
+        }
+
+        public boolean hasNext() {
+          return this.Triples().hasNext();
+        }
+
+        public RDFTriple next() {
+          return this.Triples().next();
+        }
+      };
+    }
+
+    /**
+     * Gets a stream of the triples in the input, parsed lazily as with
+     * ParseIterator.
+     * @return A stream of the triples in the input.
+     */
+    default Stream<RDFTriple> ParseStream() {
+      return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+          this.ParseIterator(),
+          Spliterator.ORDERED | Spliterator.NONNULL),
+        false);
+    }
   }
@@ -0,0 +1,25 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Receives RDF triples from a parser in batches.
+   */
+  public interface ITripleBatchSink {
+    /**
+     * Receives a batch of RDF triples produced by a parser. The parser reuses
+     * the array for the next batch once this method returns, so the triples
+     * must be copied out of it if they're needed later.
+     * @param triples An array whose first {@code count} elements are the
+     * triples in this batch.
+     * @param count The number of triples in this batch. Every batch except the
+     * last one from a parse fills the array.
+     */
+    void AddTriples(RDFTriple[] triples, int count);
+  }
@@ -0,0 +1,23 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Receives RDF triples one at a time as a parser produces them, each given
+   * as the IDs its terms have in a term table.
+   */
+  public interface ITripleIdSink {
+    /**
+     * Receives an RDF triple produced by a parser.
+     * @param subject The ID of the triple's subject.
+     * @param predicate The ID of the triple's predicate.
+     * @param objectRdf The ID of the triple's object.
+     */
+    void AddTriple(int subject, int predicate, int objectRdf);
+  }
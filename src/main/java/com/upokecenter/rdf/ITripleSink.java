@@ -0,0 +1,20 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Receives RDF triples one at a time as a parser produces them.
+   */
+  public interface ITripleSink {
+    /**
+     * Receives an RDF triple produced by a parser.
+     * @param triple The triple just produced by the parser.
+     */
+    void AddTriple(RDFTriple triple);
+  }
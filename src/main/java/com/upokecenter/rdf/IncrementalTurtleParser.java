@@ -0,0 +1,124 @@
+package com.upokecenter.rdf;
+
+import java.nio.*;
+import java.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A Turtle parser that is given its input in chunks of UTF-8 bytes as they
+   * arrive, rather than reading from a stream, so that it never blocks
+   * waiting for data. Each time a chunk completes one or more statements,
+   * the triples from those statements are passed to a sink. Blank nodes are
+   * given labels valid under N-Triples as they're read. This class is not
+   * thread safe, but different instances can be used on the same thread.
+   */
+  public final class IncrementalTurtleParser {
+    private final TurtleParser parser;
+    private final Utf8CharacterInput input;
+    private final ITripleSink sink;
+    private final List<RDFTriple> statementTriples;
+    private boolean done;
+
+    private final StatementEndScanner scanner;
+
+    // Whether the last attempt to read a statement ran out of bytes
+    private boolean waiting;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.IncrementalTurtleParser} class.
+     * @param sink The object that receives the triples read.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     */
+    public IncrementalTurtleParser(ITripleSink sink) {
+ this(sink, "about:blank");
+    }
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.IncrementalTurtleParser} class.
+     * @param sink The object that receives the triples read.
+     * @param baseURI The base URI for resolving relative IRIs.
+     * @throws NullPointerException The parameter {@code sink} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     */
+    public IncrementalTurtleParser(ITripleSink sink, String baseURI) {
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      this.input = new Utf8CharacterInput();
+      this.parser = new TurtleParser(this.input, baseURI);
+      this.parser.setRelabelBlankNodesWhileParsing(true);
+      this.sink = sink;
+      this.statementTriples = new ArrayList<RDFTriple>();
+      this.scanner = new StatementEndScanner();
+    }
+
+    /**
+     * Adds the remaining bytes of the specified buffer to the input, and passes
+     * the triples of every statement that is now complete to the sink. A
+     * multibyte character may be split between two chunks.
+     * @param data A buffer holding the next chunk of UTF-8 bytes. Its position
+     * is moved to its limit.
+     * @throws NullPointerException The parameter {@code data} is null.
+     * @throws IllegalStateException EndOfInput was already called.
+     * @throws ParserException A syntax error was found. An error in a
+     * statement may not be reported until a chunk holding a period is fed
+     * or EndOfInput is called.
+     */
+    public void Feed(ByteBuffer data) {
+      if (data == null) {
+        throw new NullPointerException("data");
+      }
+      // An unfinished statement is read again only once a period that
+      // may end it arrives, rather than for each chunk, so that a long
+      // statement fed in small chunks isn't read many times over
+      boolean parse = this.scanner.Scan(data) || !this.waiting;
+      this.input.Append(data);
+      if (parse) {
+        this.ParseAvailable();
+      }
+    }
+
+    /**
+     * Specifies that the input has ended, and passes the triples of the
+     * remaining statements to the sink.
+     * @throws IllegalStateException EndOfInput was already called.
+     * @throws ParserException A syntax error was found, or the input ends in
+     * the middle of a statement.
+     */
+    public void EndOfInput() {
+      if (this.input.IsEndOfInput()) {
+        throw new IllegalStateException("EndOfInput was already called");
+      }
+      this.input.SetEndOfInput();
+      this.ParseAvailable();
+    }
+
+    private void ParseAvailable() {
+      while (!this.done) {
+        int status = this.parser.ParseBufferedStatement(
+          this.input,
+          this.statementTriples);
+        this.waiting = status == TurtleParser.BufferedIncomplete;
+        if (this.waiting) {
+          // Keep only the bytes of the unfinished statement
+          this.input.Compact();
+          return;
+        }
+        for (int i = 0; i < this.statementTriples.size(); ++i) {
+          this.sink.AddTriple(this.statementTriples.get(i));
+        }
+        this.statementTriples.clear();
+        this.done = status == TurtleParser.BufferedEnd;
+      }
+    }
+  }
@@ -1,6 +1,12 @@
 package com.upokecenter.rdf;
 
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
 
 import com.upokecenter.util.*;
 import com.upokecenter.text.*;
@@ -16,7 +22,7 @@ licensed under the Unlicense: https://unlicense.org/
   /**
    * Not documented yet.
    */
-  public final class NTriplesParser implements IRDFParser {
+  public final class NTriplesParser implements IRDFParser, Closeable {
     /**
      * Not documented yet.
      * @param c The parameter {@code c} is a 32-bit signed integer.
@@ -33,11 +39,82 @@ licensed under the Unlicense: https://unlicense.org/
 
     private Map<String, RDFTerm> bnodeLabels;
 
-    private StackableCharacterInput input;
+    private IMarkableCharacterInput input;
+
+    // Bytes the parser was created from, if any; used
+    // for splitting the input when streaming triples
+    private ByteBuffer bytes;
+
+    // Term standing for every term read while validating
+    private static final RDFTerm ValidationTerm = RDFTerm.FromBlankNode("v");
+
+    // Characters that end a run of plain characters in an IRI reference
+    private static final IntPredicate IriDelimiter = new CodePointTable(
+      ch -> ch <= 0x20 || ch > 0x7e || ch == '>' || ch == '<' ||
+      ch == '\\' || ch == '\"' || ch == '{' || ch == '}' || ch == '|' ||
+      ch == '^' || ch == '`');
+
+    // Same as IriDelimiter, but also ends at a colon; used while
+    // validating to tell whether an IRI has a colon without keeping
+    // its text
+    private static final IntPredicate IriOrColonDelimiter = new CodePointTable(
+      ch -> ch == ':' || IriDelimiter.test(ch));
+
+    // Characters that end a run of plain characters in a string literal
+    private static final IntPredicate StringDelimiter = new CodePointTable(
+      ch -> ch < 0x20 || ch > 0x7e || ch == '\"' || ch == '\\');
+
+    private static final IntPredicate BlankNodeLabelDelimiter =
+      new CodePointTable(ch -> !((ch >= 'A' && ch <= 'Z') ||
+        (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9')));
+
+    private static final IntPredicate NonWhitespace = new CodePointTable(
+      ch -> ch != 0x09 && ch != 0x20);
+
+    // True while Validate is running; terms and triples aren't
+    // created then, and triples are only counted
+    private boolean validating;
+    private long validatedTriples;
+
+    // Table and sink of the triples read as IDs; set while
+    // Parse(TermTable, ITripleIdSink) is running
+    private TermTable idTable;
+    private ITripleIdSink idSink;
+
+    // IDs of the blank nodes read into idTable, by label, so that
+    // blank nodes of different documents aren't merged
+    private Map<String, Integer> blankIds;
+
+    // Parts of the last term read by ReadTerm
+    private int termKind;
+    private String termValue;
+    private String termTypeOrLanguage;
+
+    // Builder that token readers collect characters in; kept
+    // between tokens and documents to save allocating one per token
+    private StringBuilder scratch = new StringBuilder();
+
+    // Capacity above which the scratch builder isn't kept by Reset
+    private static final int MaxScratchCapacity = 1 << 16;
+
+    private TripleDeduplication deduplication = TripleDeduplication.None;
+    private int approximateSlots = DuplicateFilter.DefaultApproximateSlots;
+    private ParseLimiter limiter;
+    private ByteCountingInput counter;
+
+    // Dictionary that terms are interned in, or null
+    private TermDictionary terms;
+
+    private int maxBufferedChars =
+      StackableCharacterInput.DefaultMaxBufferSize;
+
+    // Input decoded on another thread, or null
+    private BackgroundCharacterInput background;
 
     /**
      * Initializes a new instance of the {@link com.upokecenter.rdf.NTriplesParser}
-     * class.
+     * class. The input is read through a character buffer, so tokens are
+     * limited in length as setMaxBufferedChars describes.
      * @param stream A PeterO.IByteReader object.
      * @throws NullPointerException The parameter {@code stream} is null.
      */
@@ -45,13 +122,488 @@ licensed under the Unlicense: https://unlicense.org/
       if (stream == null) {
         throw new NullPointerException("stream");
       }
-      this.input = new StackableCharacterInput(
+      ByteCountingInput counter = new ByteCountingInput(
         Encodings.GetDecoderInput(
           Encodings.GetEncoding("us-ascii", true),
           stream));
+      this.input = new StackableCharacterInput(counter);
+      this.counter = counter;
+      this.limiter = new ParseLimiter(counter);
+      this.bnodeLabels = new HashMap<String, RDFTerm>();
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.NTriplesParser}
+     * class from a byte array.
+     * @param bytes A byte array containing N-Triples data.
+     * @throws NullPointerException The parameter {@code bytes} is null.
+     */
+    public NTriplesParser(byte[] bytes) {
+ this(bytes, 0, CheckBytes(bytes).length);
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.NTriplesParser}
+     * class from a portion of a byte array.
+     * @param bytes A byte array containing N-Triples data.
+     * @param offset Index of the first byte of the data.
+     * @param length Number of bytes of data.
+     * @throws NullPointerException The parameter {@code bytes} is null.
+     * @throws IllegalArgumentException Either {@code offset} or {@code length}
+     * is less than 0 or greater than {@code bytes}'s length, or {@code
+     * bytes}'s length minus {@code offset} is less than {@code length}.
+     */
+    public NTriplesParser(byte[] bytes, int offset, int length) {
+      if (bytes == null) {
+        throw new NullPointerException("bytes");
+      }
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset(" + offset +
+          ") is less than 0");
+      }
+      if (offset > bytes.length) {
+        throw new IllegalArgumentException("offset(" + offset +
+          ") is more than " + bytes.length);
+      }
+      if (length < 0) {
+        throw new IllegalArgumentException("length(" + length +
+          ") is less than 0");
+      }
+      if (length > bytes.length) {
+        throw new IllegalArgumentException("length(" + length +
+          ") is more than " + bytes.length);
+      }
+      if (bytes.length - offset < length) {
+        throw new IllegalArgumentException("bytes's length minus " + offset +
+          "(" + (bytes.length - offset) + ") is less than " + length);
+      }
+      this.bytes = ByteBuffer.wrap(bytes, offset, length).slice();
+      AsciiCharacterInput ascii = new AsciiCharacterInput(this.bytes);
+      this.input = ascii;
+      this.limiter = new ParseLimiter(ascii);
       this.bnodeLabels = new HashMap<String, RDFTerm>();
     }
 
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.NTriplesParser}
+     * class that reads a file through memory mapping, so that the data is read
+     * from the operating system's page cache without being copied. Files
+     * bigger than 2 GiB are mapped in several segments. If the file is mapped
+     * in one segment, ParseStream can split it as it does a byte array;
+     * otherwise it's read through a character buffer limited by
+     * setMaxBufferedChars.
+     * @param path The file to read.
+     * @throws NullPointerException The parameter {@code path} is null.
+     * @throws IOException An I/O error occurred while opening or mapping the
+     * file.
+     */
+    public NTriplesParser(Path path) throws IOException {
+ this(ByteBufferReader.MapFile(path));
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.NTriplesParser}
+     * class that reads the remaining bytes of a buffer, which can be a heap
+     * or direct buffer. The buffer's position isn't changed, and ParseStream
+     * can split the bytes as it does a byte array.
+     * @param buffer A buffer holding N-Triples data.
+     * @throws NullPointerException The parameter {@code buffer} is null.
+     */
+    public NTriplesParser(ByteBuffer buffer) {
+ this(new ByteBuffer[] { RDFInternal.Duplicate(buffer).slice() });
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.NTriplesParser}
+     * class that reads from a channel, in large blocks through a direct
+     * buffer that is reused for each block.
+     * @param channel A channel in blocking mode. It isn't closed by the parser.
+     * I/O errors while parsing are thrown as UncheckedIOException, as is a
+     * channel that keeps returning no bytes.
+     * @throws NullPointerException The parameter {@code channel} is null.
+     * @throws IllegalArgumentException The parameter {@code channel} is a
+     * selectable channel in non-blocking mode.
+     */
+    public NTriplesParser(ReadableByteChannel channel) {
+ this(new ChannelReader(channel));
+    }
+
+    // Initializes a parser that reads the specified buffers in order
+    private NTriplesParser(ByteBuffer[] buffers) {
+      this.bnodeLabels = new HashMap<String, RDFTerm>();
+      if (buffers.length == 1) {
+        // A single buffer can be split like a byte array, and is
+        // read directly
+        this.bytes = buffers[0];
+        AsciiCharacterInput ascii = new AsciiCharacterInput(this.bytes);
+        this.input = ascii;
+        this.limiter = new ParseLimiter(ascii);
+        return;
+      }
+      ByteCountingInput counter = new ByteCountingInput(
+        Encodings.GetDecoderInput(
+          Encodings.GetEncoding("us-ascii", true),
+          new ByteBufferReader(buffers)));
+      this.input = new StackableCharacterInput(counter);
+      this.counter = counter;
+      this.limiter = new ParseLimiter(counter);
+    }
+
+    // Initializes a parser that reads the specified characters
+    private NTriplesParser(ICharacterInput source) {
+      ByteCountingInput counter = new ByteCountingInput(source);
+      this.input = new StackableCharacterInput(counter);
+      this.counter = counter;
+      this.limiter = new ParseLimiter(counter);
+      this.bnodeLabels = new HashMap<String, RDFTerm>();
+    }
+
+    /**
+     * Creates an N-Triples parser that reads gzip-compressed data, such as a
+     * ".nt.gz" file. The data is decompressed and decoded on a separate
+     * thread, which hands large blocks of characters to the parser through a
+     * small bounded buffer, so that on a machine with more than one
+     * processor, decompression and parsing take place at the same time. The
+     * stream is closed by that thread once it's read to the end, or once the
+     * parser is closed, as described in close(). The byte limit, if set, applies to the
+     * decompressed bytes, and tokens are limited in length as
+     * setMaxBufferedChars describes.
+     * @param stream A stream of gzip-compressed data.
+     * @return An N-Triples parser.
+     * @throws NullPointerException The parameter {@code stream} is null.
+     */
+    public static NTriplesParser FromGzip(InputStream stream) {
+      return FromCompressed(stream, true);
+    }
+
+    /**
+     * Creates an N-Triples parser that reads data compressed in the zlib format
+     * (deflate data with a zlib header). The data is decompressed and decoded
+     * on a separate thread, as with FromGzip.
+     * @param stream A stream of zlib-compressed data.
+     * @return An N-Triples parser.
+     * @throws NullPointerException The parameter {@code stream} is null.
+     */
+    public static NTriplesParser FromDeflate(InputStream stream) {
+      return FromCompressed(stream, false);
+    }
+
+    private static NTriplesParser FromCompressed(
+      InputStream stream,
+      boolean gzip) {
+      BackgroundCharacterInput background = new BackgroundCharacterInput(
+        stream,
+        gzip,
+        true);
+      NTriplesParser parser = new NTriplesParser(background);
+      parser.background = background;
+      return parser;
+    }
+
+    /**
+     * Prepares this parser to read another document from the specified string,
+     * as though it had just been created with that string. The parser's
+     * buffers and maps are reused, so that one parser can read many small
+     * documents without allocating much for each; a parser can be kept per
+     * thread for that purpose. Settings such as the deduplication mode and
+     * the limits are kept.
+     * @param str The parameter {@code str} is a text string.
+     * @throws NullPointerException The parameter {@code str} is null.
+     */
+    public void Reset(String str) {
+      if (str == null) {
+        throw new NullPointerException("str");
+      }
+      StringCharacterInput chars;
+      if (this.input instanceof StringCharacterInput) {
+        chars = (StringCharacterInput)this.input;
+        chars.Reset(str);
+      } else {
+        chars = new StringCharacterInput(str);
+        this.input = chars;
+      }
+      this.counter = null;
+      this.limiter.Reset(chars);
+      this.bytes = null;
+      this.ResetState();
+    }
+
+    /**
+     * Prepares this parser to read another document from the specified byte
+     * reader, as though it had just been created with that reader. As with
+     * the other overloads, the parser's buffers and maps are reused and its
+     * settings are kept.
+     * @param stream A byte reader.
+     * @throws NullPointerException The parameter {@code stream} is null.
+     */
+    public void Reset(IByteReader stream) {
+      if (stream == null) {
+        throw new NullPointerException("stream");
+      }
+      this.ResetInput(
+        Encodings.GetDecoderInput(
+          Encodings.GetEncoding("us-ascii", true),
+          stream));
+    }
+
+    /**
+     * Prepares this parser to read another document from the remaining bytes
+     * of the specified buffer, as though it had just been created with that
+     * buffer. As with the other overloads, the parser's buffers and maps are
+     * reused and its settings are kept.
+     * @param buffer A byte buffer. Its position and limit aren't changed.
+     * @throws NullPointerException The parameter {@code buffer} is null.
+     */
+    public void Reset(ByteBuffer buffer) {
+      ByteBuffer bytes = RDFInternal.Duplicate(buffer).slice();
+      AsciiCharacterInput ascii;
+      if (this.input instanceof AsciiCharacterInput) {
+        ascii = (AsciiCharacterInput)this.input;
+        ascii.Reset(bytes);
+      } else {
+        ascii = new AsciiCharacterInput(bytes);
+        this.input = ascii;
+      }
+      this.counter = null;
+      this.limiter.Reset(ascii);
+      this.bytes = bytes;
+      this.ResetState();
+    }
+
+    private void ResetInput(ICharacterInput source) {
+      ByteCountingInput counter = new ByteCountingInput(source);
+      StackableCharacterInput stackable;
+      if (this.input instanceof StackableCharacterInput) {
+        stackable = (StackableCharacterInput)this.input;
+        stackable.Reset(counter);
+      } else {
+        stackable = new StackableCharacterInput(counter);
+        this.input = stackable;
+      }
+      stackable.SetMaxBufferSize(this.maxBufferedChars);
+      this.counter = counter;
+      this.limiter.Reset(counter);
+      this.bytes = null;
+      this.ResetState();
+    }
+
+    private void ResetState() {
+      this.close();
+      this.bnodeLabels.clear();
+      this.validating = false;
+      this.validatedTriples = 0;
+      if (this.scratch.capacity() > MaxScratchCapacity) {
+        this.scratch = new StringBuilder();
+      }
+    }
+
+    // Returns the builder that token readers collect characters
+    // in, emptied
+    private StringBuilder Scratch() {
+      this.scratch.setLength(0);
+      return this.scratch;
+    }
+
+    private static byte[] CheckBytes(byte[] bytes) {
+      if (bytes == null) {
+        throw new NullPointerException("bytes");
+      }
+      return bytes;
+    }
+
+    /**
+     * Gets the strategy used to eliminate duplicate triples when this parser
+     * passes triples to a sink, an iterator or a stream.
+     * @return The deduplication strategy. The default is
+     * TripleDeduplication.None.
+     */
+    public final TripleDeduplication getDeduplication() {
+      return this.deduplication;
+    }
+
+    /**
+     * Sets the strategy used to eliminate duplicate triples when this parser
+     * passes triples to a sink, an iterator or a stream. Should be set before
+     * parsing begins.
+     * @param value The deduplication strategy.
+     * @throws NullPointerException The parameter {@code value} is null.
+     */
+    public final void setDeduplication(TripleDeduplication value) {
+      if (value == null) {
+        throw new NullPointerException("value");
+      }
+      this.deduplication = value;
+    }
+
+    /**
+     * Gets the number of 64-bit fingerprints remembered by the
+     * TripleDeduplication.Approximate strategy.
+     * @return The number of fingerprints. The default is 1048576 (8 MiB).
+     */
+    public final int getApproximateDeduplicationSlots() {
+      return this.approximateSlots;
+    }
+
+    /**
+     * Sets the number of 64-bit fingerprints remembered by the
+     * TripleDeduplication.Approximate strategy. The number is rounded up to a
+     * power of two.
+     * @param value The number of fingerprints.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 1.
+     */
+    public final void setApproximateDeduplicationSlots(int value) {
+      if (value < 1) {
+        throw new IllegalArgumentException("value(" + value +
+          ") is less than 1");
+      }
+      this.approximateSlots = value;
+    }
+
+    /**
+     * Gets the dictionary this parser interns IRIs, datatype IRIs and
+     * language tags in.
+     * @return The term dictionary, or null if there is none (the default).
+     */
+    public final TermDictionary getTermDictionary() {
+      return this.terms;
+    }
+
+    /**
+     * Sets a dictionary this parser interns IRIs, datatype IRIs and language
+     * tags in, so that each IRI that repeats is read as the same RDFTerm
+     * object while the dictionary holds it. This saves memory when many
+     * triples read by this parser are kept. The dictionary can be shared
+     * with other parsers, including ones used at the same time from
+     * different threads, and is also used by the parsers of each part of a
+     * stream returned by ParseStream. Should be set before parsing begins.
+     * @param value The term dictionary, or null to have none.
+     */
+    public final void setTermDictionary(TermDictionary value) {
+      this.terms = value;
+    }
+
+    // Gives a parser of part of this parser's input the settings
+    // of this parser, and returns that parser
+    NTriplesParser NewPartParser(NTriplesParser part) {
+      part.deduplication = this.deduplication;
+      part.approximateSlots = this.approximateSlots;
+      part.terms = this.terms;
+      part.maxBufferedChars = this.maxBufferedChars;
+      return part;
+    }
+
+    private ITripleSink FilterSink(ITripleSink sink) {
+      return DuplicateFilter.Wrap(
+          this.limiter.Wrap(sink),
+          this.deduplication,
+          this.approximateSlots);
+    }
+
+    /**
+     * Gets the maximum number of triples this parser passes on before it stops
+     * reading.
+     * @return The maximum number of triples. The default is Long.MAX_VALUE.
+     */
+    public final long getMaxTriples() {
+      return this.limiter.GetMaxTriples();
+    }
+
+    /**
+     * Sets the maximum number of triples this parser passes on before it stops
+     * reading, which is useful for previews of large documents. Once the
+     * maximum is reached, parsing ends as though the input ended after the
+     * last triple passed on. Should be set before parsing begins.
+     * @param value The maximum number of triples.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 0.
+     */
+    public final void setMaxTriples(long value) {
+      this.limiter.SetMaxTriples(value);
+    }
+
+    /**
+     * Gets the number of bytes of input after which this parser stops reading.
+     * @return The maximum number of bytes. The default is Long.MAX_VALUE.
+     */
+    public final long getMaxBytes() {
+      return this.limiter.GetMaxBytes();
+    }
+
+    /**
+     * Sets the number of bytes of input after which this parser stops reading.
+     * The limit is checked between statements, so the statement that crosses
+     * it is read in full; parsing then ends as though the input ended there.
+     * For a parser created from a string, the string's length in UTF-8 is
+     * counted. Should be set before parsing begins.
+     * @param value The maximum number of bytes.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 0.
+     */
+    public final void setMaxBytes(long value) {
+      this.limiter.SetMaxBytes(value);
+    }
+
+    /**
+     * Gets the maximum number of characters this parser holds in memory for
+     * the token or line being read.
+     * @return The maximum number of characters. The default is
+     * StackableCharacterInput.DefaultMaxBufferSize, 2^26.
+     */
+    public final int getMaxBufferedChars() {
+      return this.maxBufferedChars;
+    }
+
+    /**
+     * Sets the maximum number of characters this parser holds in memory for
+     * the token or line being read, so that a token of unlimited length can't
+     * use unlimited memory; a longer token throws ParserException. This
+     * applies only to parsers that read through a character buffer: those
+     * created from an IByteReader, from a file mapped in more than one
+     * segment, or with FromGzip or FromDeflate. Other parsers read their
+     * input in place. Should be set before parsing begins.
+     * @param value The maximum number of characters.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 1.
+     */
+    public final void setMaxBufferedChars(int value) {
+      if (value < 1) {
+        throw new IllegalArgumentException("value(" + value +
+          ") is less than 1");
+      }
+      this.maxBufferedChars = value;
+      if (this.input instanceof StackableCharacterInput) {
+        ((StackableCharacterInput)this.input).SetMaxBufferSize(value);
+      }
+    }
+
+    /**
+     * Gets the cancellation check of this parser.
+     * @return The cancellation check, or null if there is none (the default).
+     */
+    public final BooleanSupplier getCancellation() {
+      return this.limiter.GetCancellation();
+    }
+
+    /**
+     * Sets a cancellation check, which the parser calls between statements;
+     * if it returns {@code true}, parsing ends as though the input ended
+     * there. The check can, for example, read a flag set by another thread.
+     * @param value The cancellation check, or null to have none.
+     */
+    public final void setCancellation(BooleanSupplier value) {
+      this.limiter.SetCancellation(value);
+    }
+
+    /**
+     * Gets a value indicating whether parsing ended before the end of the
+     * input because of setMaxTriples, setMaxBytes or setCancellation.
+     * @return Either {@code true} or {@code false}.
+     */
+    public final boolean getStoppedEarly() {
+      return this.limiter.IsStopped();
+    }
+
     /**
      * Initializes a new instance of the {@link com.upokecenter.rdf.NTriplesParser}
      * class.
@@ -62,8 +614,11 @@ licensed under the Unlicense: https://unlicense.org/
       if (str == null) {
         throw new NullPointerException("str");
       }
-      this.input = new StackableCharacterInput(
-        Encodings.StringToInput(str));
+      // The string is indexed directly rather than copied into
+      // a buffer of code points
+      StringCharacterInput chars = new StringCharacterInput(str);
+      this.input = chars;
+      this.limiter = new ParseLimiter(chars);
       this.bnodeLabels = new HashMap<String, RDFTerm>();
     }
 
@@ -80,63 +635,382 @@ licensed under the Unlicense: https://unlicense.org/
       }
     }
 
-    private RDFTerm FinishStringLiteral(String str) {
+    private RDFTerm NewIri(String iri) {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      return (this.terms == null) ? RDFTerm.FromIRI(iri) :
+        this.terms.GetIri(iri);
+    }
+
+    private RDFTerm NewLangString(String str, String languageTag) {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      return RDFTerm.FromLangString(
+          str,
+          (this.terms == null) ? languageTag :
+          this.terms.GetLanguageTag(languageTag));
+    }
+
+    private RDFTerm NewTypedString(String str) {
+      return this.validating ? ValidationTerm : RDFTerm.FromTypedString(str);
+    }
+
+    private RDFTerm NewTypedString(String str, String iri) {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      return RDFTerm.FromTypedString(
+          str,
+          (this.terms == null) ? iri : this.terms.GetDatatype(iri));
+    }
+
+    private void FinishStringLiteral(String str) {
+      this.termValue = str;
       int mark = this.input.SetHardMark();
       int ch = this.input.ReadChar();
       if (ch == '@') {
-        return RDFTerm.FromLangString(str, this.ReadLanguageTag());
+        this.termKind = RDFTerm.LANGSTRING;
+        this.termTypeOrLanguage = this.ReadLanguageTag();
       } else if (ch == '^' && this.input.ReadChar() == '^') {
         ch = this.input.ReadChar();
         if (ch == '<') {
-          return RDFTerm.FromTypedString(str, this.ReadIriReference());
+          this.termKind = RDFTerm.TYPEDSTRING;
+          this.termTypeOrLanguage = this.ReadIriReference();
         } else {
           throw new ParserException();
         }
       } else {
         this.input.SetMarkPosition(mark);
-        return RDFTerm.FromTypedString(str);
+        this.termKind = RDFTerm.TYPEDSTRING;
+        this.termTypeOrLanguage = null;
+      }
+    }
+
+    // Makes an RDF term from the parts of the last term read
+    private RDFTerm NewTerm() {
+      String value = this.termValue;
+      switch (this.termKind) {
+        case RDFTerm.IRI:
+          return this.NewIri(value);
+        case RDFTerm.LANGSTRING:
+          return this.NewLangString(value, this.termTypeOrLanguage);
+        case RDFTerm.TYPEDSTRING:
+          return (this.termTypeOrLanguage == null) ?
+            this.NewTypedString(value) :
+            this.NewTypedString(value, this.termTypeOrLanguage);
+        default: {
+          if (this.validating) {
+            return ValidationTerm;
+          }
+          RDFTerm term = this.bnodeLabels.get(value);
+          if (term == null) {
+            term = RDFTerm.FromBlankNode(value);
+            this.bnodeLabels.put(value, term);
+          }
+          return term;
+        }
       }
     }
 
+    // Gets the ID of the last term read, adding it to the table
+    // if needed
+    private int TermId() {
+      if (this.termKind == RDFTerm.BLANK) {
+        Integer id = this.blankIds.get(this.termValue);
+        if (id == null) {
+          id = this.idTable.NewBlankNode(this.termValue);
+          this.blankIds.put(this.termValue, id);
+        }
+        return id;
+      }
+      String typeOrLanguage = (this.termKind == RDFTerm.TYPEDSTRING &&
+        this.termTypeOrLanguage == null) ? RDFTerm.XmlSchemaString :
+        this.termTypeOrLanguage;
+      return this.idTable.Add(this.termKind, typeOrLanguage, this.termValue);
+    }
+
     /**
      * Not documented yet.
      * @return An ISet(RDFTriple) object.
      */
     public Set<RDFTriple> Parse() {
       Set<RDFTriple> rdf = new HashSet<RDFTriple>();
-      while (true) {
-        this.SkipWhitespace();
-        this.input.SetHardMark();
-        int ch = this.input.ReadChar();
-        if (ch < 0) {
-          return rdf;
+      this.Parse(RDFInternal.ToSink(rdf));
+      return rdf;
+    }
+
+    /**
+     * Parses the input and adds each RDF triple read to the specified
+     * collection, so that the caller chooses its type and initial capacity.
+     * Duplicate triples are eliminated only as far as the collection itself
+     * and setDeduplication do so.
+     * @param triples A collection that receives the triples read.
+     * @throws NullPointerException The parameter {@code triples} is null.
+     */
+    public void Parse(Collection<RDFTriple> triples) {
+      if (triples == null) {
+        throw new NullPointerException("triples");
+      }
+      this.Parse(RDFInternal.ToSink(triples));
+    }
+
+    /**
+     * Parses the input and passes each RDF triple to the specified sink as soon
+     * as its line is read. Unlike the other overload, this method eliminates
+     * duplicate triples only as setDeduplication specifies.
+     * @param sink The object that receives the triples read.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     */
+    public void Parse(ITripleSink sink) {
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      ITripleSink filtered = this.FilterSink(sink);
+      while (this.NextLine(filtered)) {
+        // Keep reading lines until the end of the input
+      }
+    }
+
+    /**
+     * Parses the input and passes the RDF triples read to the specified sink in
+     * batches, each held in an array that is reused from batch to batch. As
+     * with the overload that takes a triple sink, duplicate triples are
+     * eliminated only as setDeduplication specifies.
+     * @param sink The object that receives the batches of triples read.
+     * @param batchSize The number of triples in each batch except the last.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     * @throws IllegalArgumentException The parameter {@code batchSize} is less
+     * than 1.
+     */
+    public void Parse(ITripleBatchSink sink, int batchSize) {
+      TripleBatcher batcher = new TripleBatcher(sink, batchSize);
+      this.Parse(batcher);
+      batcher.Flush();
+    }
+
+    /**
+     * Parses the input and passes each RDF triple to the specified sink as the
+     * IDs its terms have in the specified term table, adding terms to the
+     * table as they're first read. Unless a deduplication strategy other
+     * than TripleDeduplication.None or a maximum number of triples is set,
+     * the terms are read straight into the table, so that no RDFTriple or
+     * RDFTerm objects are made; the term dictionary, if any, isn't used
+     * then. The blank nodes read get IDs distinct from those of blank nodes
+     * already in the table, as described in TermTable. As with the overload
+     * that takes a triple sink, duplicate triples are eliminated only as
+     * setDeduplication specifies.
+     * @param table The table that numbers the terms read.
+     * @param sink The object that receives the triples read.
+     * @throws NullPointerException The parameter {@code table} or {@code
+     * sink} is null.
+     */
+    public void Parse(TermTable table, ITripleIdSink sink) {
+      if (table == null) {
+        throw new NullPointerException("table");
+      }
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      if (this.deduplication != TripleDeduplication.None ||
+        this.limiter.GetMaxTriples() != Long.MAX_VALUE) {
+        // Deduplication and the triple limit work on triples
+        IRDFParser.super.Parse(table, sink);
+        return;
+      }
+      this.idTable = table;
+      this.idSink = sink;
+      this.blankIds = new HashMap<String, Integer>();
+      try {
+        while (this.NextLine(null)) {
+          // Keep reading lines until the end of the input
         }
-        if (ch == '#') {
-          while (true) {
-            ch = this.input.ReadChar();
-            if (ch == 0x0a || ch == 0x0d) {
-              this.EndOfLine(ch);
-              break;
-            } else if (ch < 0x20 || ch > 0x7e) {
-              throw new ParserException();
-            }
+      } finally {
+        this.idTable = null;
+        this.idSink = null;
+        this.blankIds = null;
+      }
+    }
+
+    /**
+     * Checks the syntax of the input without creating RDF terms or triples or
+     * resolving IRIs, and counts the statements and triples read. Checking
+     * stops at the first syntax error. Limits set with setMaxBytes and
+     * setCancellation apply, but setMaxTriples and setDeduplication are
+     * ignored. This method is meant to be called at most once and instead of
+     * the parsing methods.
+     * @return The result of the check.
+     */
+    public ValidationResult Validate() {
+      long statements = 0;
+      long triples = 0;
+      this.validating = true;
+      try {
+        while (this.NextLine(null)) {
+          ++statements;
+          triples = this.validatedTriples;
+        }
+      } catch (ParserException ex) {
+        return new ValidationResult(
+          statements,
+          triples,
+          RDFInternal.GetPosition(this.counter, this.input),
+          ex);
+      } finally {
+        this.validating = false;
+      }
+      return new ValidationResult(statements, triples, -1, null);
+    }
+
+    /**
+     * Gets an iterator that parses the input lazily, reading one line each time
+     * it runs out of triples. As with the overload of Parse that takes a
+     * sink, duplicate triples are eliminated only as setDeduplication
+     * specifies. The iterator's methods
+     * throw ParserException if a syntax error is found.
+     * @return An iterator over the triples in the input.
+     */
+    public Iterator<RDFTriple> ParseIterator() {
+      return new StatementIterator() {
+        private ITripleSink filtered;
+
+        @Override protected boolean ReadStatement(ITripleSink sink) {
+          if (this.filtered == null) {
+            this.filtered = NTriplesParser.this.FilterSink(sink);
+          }
+          return NTriplesParser.this.NextLine(this.filtered);
+        }
+      };
+    }
+
+    /**
+     * Gets a stream of the triples in the input, parsed lazily as with
+     * ParseIterator. If this parser was created from a byte array (or a file
+     * mapped in one segment), the
+     * stream covers all the bytes given to the parser, and, unless a
+     * deduplication strategy other than TripleDeduplication.None or a
+     * limit or cancellation check is set, it can be split at line
+     * boundaries, so that a parallel stream parses different parts of the
+     * data on different threads. This method is
+     * meant to be called at most once and before any other parsing method.
+     * Closing the stream closes this parser.
+     * @return A stream of the triples in the input.
+     */
+    public Stream<RDFTriple> ParseStream() {
+      // Deduplication and limits need to see every triple, so the
+      // stream isn't split in those cases
+      Spliterator<RDFTriple> spliterator = (this.bytes != null &&
+        this.deduplication == TripleDeduplication.None &&
+        !this.limiter.IsLimited()) ?
+        new NTriplesSpliterator(this, this.bytes, 0, this.bytes.capacity()) :
+        Spliterators.spliteratorUnknownSize(
+          this.ParseIterator(),
+          Spliterator.ORDERED | Spliterator.NONNULL);
+      return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Stops reading the input. For a parser created with FromGzip or
+     * FromDeflate, this stops the thread that decompresses and decodes the
+     * input, which then closes the compressed stream; this happens on its
+     * own when the parser reaches the end of the input, or when a parsing
+     * method ends early because of a syntax error or a limit, but not when
+     * an iterator or stream from ParseIterator or ParseStream is left
+     * unfinished, so such a parser should be closed once it's no longer
+     * needed. Streams, channels and files given to the constructors aren't
+     * closed. Parsing after this method is called ends as though the input
+     * ended there.
+     */
+    public void close() {
+      if (this.background != null) {
+        this.background.close();
+        this.background = null;
+      }
+    }
+
+    // Reads the next line as ParseLine does, unless a limit or the
+    // cancellation check stops parsing first. Returns false if no line
+    // was read.
+    private boolean NextLine(ITripleSink sink) {
+      if (this.limiter.ShouldStop()) {
+        this.close();
+        return false;
+      }
+      return this.ParseLine(sink);
+    }
+
+    // Reads a line, which can be a comment, a triple or empty, and
+    // passes any triple read to the specified sink. Returns false if
+    // the end of the input was reached instead. Stops reading the
+    // input if an error occurs.
+    private boolean ParseLine(ITripleSink sink) {
+      try {
+        return this.ReadLine(sink);
+      } catch (IllegalStateException ex) {
+        this.close();
+        if (!(this.input instanceof StackableCharacterInput)) {
+          throw ex;
+        }
+        // The token is longer than getMaxBufferedChars
+        throw new ParserException(ex.getMessage(), ex);
+      } catch (RuntimeException ex) {
+        this.close();
+        throw ex;
+      }
+    }
+
+    private boolean ReadLine(ITripleSink sink) {
+      this.SkipWhitespace();
+      this.input.SetHardMark();
+      int ch = this.input.ReadChar();
+      if (ch < 0) {
+        return false;
+      }
+      if (ch == '#') {
+        while (true) {
+          ch = this.input.ReadChar();
+          if (ch == 0x0a || ch == 0x0d) {
+            this.EndOfLine(ch);
+            break;
+          } else if (ch < 0x20 || ch > 0x7e) {
+            throw new ParserException();
           }
-        } else if (ch == 0x0a || ch == 0x0d) {
-          this.EndOfLine(ch);
+        }
+      } else if (ch == 0x0a || ch == 0x0d) {
+        this.EndOfLine(ch);
+      } else {
+        this.input.MoveBack(1);
+        if (this.idSink != null) {
+          this.ReadTripleIds();
         } else {
-          this.input.MoveBack(1);
-          rdf.add(this.ReadTriples());
+          RDFTriple triple = this.ReadTriples();
+          // ReadTriples returns null while validating
+          if (triple != null) {
+            sink.AddTriple(triple);
+          }
         }
       }
+      return true;
     }
 
+    // While validating, the token readers below check the syntax
+    // without building the token's text, and return the empty string
+
     private String ReadBlankNodeLabel() {
-      StringBuilder ilist = new StringBuilder();
       int startChar = this.input.ReadChar();
       if (!((startChar >= 'A' && startChar <= 'Z') ||
         (startChar >= 'a' && startChar <= 'z'))) {
         throw new ParserException();
       }
+      if (this.validating) {
+        int ch = this.input.ScanUntil(BlankNodeLabelDelimiter, null);
+        if (ch >= 0) {
+          this.input.MoveBack(1);
+        }
+        return "";
+      }
+      StringBuilder ilist = this.Scratch();
       if (startChar <= 0xffff) {
         {
           ilist.append((char)startChar);
@@ -147,33 +1021,29 @@ licensed under the Unlicense: https://unlicense.org/
         ilist.append((char)(((startChar - 0x10000) & 0x3ff) | 0xdc00));
       }
       this.input.SetSoftMark();
-      while (true) {
-        int ch = this.input.ReadChar();
-        if ((ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z') ||
-          (ch >= '0' && ch <= '9')) {
-          if (ch <= 0xffff) {
-            {
-              ilist.append((char)ch);
-            }
-          } else if (ch <= 0x10ffff) {
-            ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-          }
-        } else {
-          if (ch >= 0) {
-            this.input.MoveBack(1);
-          }
-          return ilist.toString();
-        }
+      int ch = this.input.ScanUntil(BlankNodeLabelDelimiter, ilist);
+      if (ch >= 0) {
+        this.input.MoveBack(1);
       }
+      return ilist.toString();
     }
 
     private String ReadIriReference() {
-      StringBuilder ilist = new StringBuilder();
-      boolean haveString = false;
-      boolean colon = false;
+      if (this.validating) {
+        return this.SkipIriReference();
+      }
+      // Most IRIs have no escapes, and are taken from the input
+      // in one step
+      String iri = this.input.ScanString(IriDelimiter, '>');
+      if (iri != null) {
+        if (iri.indexOf(':') < 0) {
+          throw new ParserException();
+        }
+        return iri;
+      }
+      StringBuilder ilist = this.Scratch();
       while (true) {
-        int c2 = this.input.ReadChar();
+        int c2 = this.input.ScanUntil(IriDelimiter, ilist);
         if ((c2 <= 0x20 || c2 > 0x7e) || ((c2 & 0x7F) == c2 && "<\"{}|^`"
           .indexOf((char)c2) >= 0)) {
           throw new ParserException();
@@ -183,9 +1053,6 @@ licensed under the Unlicense: https://unlicense.org/
             "<\"{}|\\^`".indexOf((char)c2) >= 0)) {
             throw new ParserException();
           }
-          if (c2 == ':') {
-            colon = true;
-          }
           if (c2 <= 0xffff) {
             {
               ilist.append((char)c2);
@@ -194,9 +1061,10 @@ licensed under the Unlicense: https://unlicense.org/
             ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
             ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
           }
-          haveString = true;
         } else if (c2 == '>') {
-          if (!haveString || !colon) {
+          // The IRI must be absolute, so it has a colon, whether
+          // or not escaped
+          if (ilist.length() == 0 || ilist.indexOf(":") < 0) {
             throw new ParserException();
           }
           return ilist.toString();
@@ -204,9 +1072,6 @@ licensed under the Unlicense: https://unlicense.org/
           // Should have been escaped
           throw new ParserException();
         } else {
-          if (c2 == ':') {
-            colon = true;
-          }
           if (c2 <= 0xffff) {
             {
               ilist.append((char)c2);
@@ -215,13 +1080,38 @@ licensed under the Unlicense: https://unlicense.org/
             ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
             ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
           }
-          haveString = true;
+        }
+      }
+    }
+
+    private String SkipIriReference() {
+      boolean colon = false;
+      while (true) {
+        int c2 = this.input.ScanUntil(IriOrColonDelimiter, null);
+        if (c2 == ':') {
+          colon = true;
+        } else if (c2 == '\\') {
+          c2 = this.ReadUnicodeEscape(true);
+          if (c2 <= 0x20 || (c2 >= 0x7f && c2 <= 0x9f) || ((c2 & 0x7f) == c2 &&
+            "<\"{}|\\^`".indexOf((char)c2) >= 0)) {
+            throw new ParserException();
+          }
+          colon |= c2 == ':';
+        } else if (c2 == '>') {
+          // The IRI must be absolute, so it has a colon, whether
+          // or not escaped
+          if (!colon) {
+            throw new ParserException();
+          }
+          return "";
+        } else {
+          throw new ParserException();
         }
       }
     }
 
     private String ReadLanguageTag() {
-      StringBuilder ilist = new StringBuilder();
+      StringBuilder ilist = this.validating ? null : this.Scratch();
       boolean hyphen = false;
       boolean haveHyphen = false;
       boolean haveString = false;
@@ -229,24 +1119,15 @@ licensed under the Unlicense: https://unlicense.org/
       while (true) {
         int c2 = this.input.ReadChar();
         if (c2 >= 'a' && c2 <= 'z') {
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
+          if (ilist != null) {
+            // Only ASCII characters appear in a language tag
+            ilist.append((char)c2);
           }
           haveString = true;
           hyphen = false;
         } else if (haveHyphen && (c2 >= '0' && c2 <= '9')) {
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
+          if (ilist != null) {
+            ilist.append((char)c2);
           }
           haveString = true;
           hyphen = false;
@@ -254,13 +1135,8 @@ licensed under the Unlicense: https://unlicense.org/
           if (hyphen || !haveString) {
             throw new ParserException();
           }
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
+          if (ilist != null) {
+            ilist.append((char)c2);
           }
           hyphen = true;
           haveHyphen = true;
@@ -272,40 +1148,61 @@ licensed under the Unlicense: https://unlicense.org/
           if (hyphen || !haveString) {
             throw new ParserException();
           }
-          return ilist.toString();
+          return (ilist == null) ? "" : ilist.toString();
         }
       }
     }
 
-    private RDFTerm ReadObject(boolean acceptLiteral) {
+    // Reads a subject or object, storing its parts in termKind,
+    // termValue and termTypeOrLanguage
+    private void ReadTerm(boolean acceptLiteral) {
       int ch = this.input.ReadChar();
       if (ch < 0) {
         throw new ParserException();
       } else if (ch == '<') {
-        return RDFTerm.FromIRI(this.ReadIriReference());
+        this.termKind = RDFTerm.IRI;
+        this.termValue = this.ReadIriReference();
+        this.termTypeOrLanguage = null;
       } else if (acceptLiteral && (ch == '\"')) { // start of quote literal
         String str = this.ReadStringLiteral(ch);
-        return this.FinishStringLiteral(str);
+        this.FinishStringLiteral(str);
       } else if (ch == '_') { // Blank Node Label
         if (this.input.ReadChar() != ':') {
           throw new ParserException();
         }
-        String label = this.ReadBlankNodeLabel();
-        RDFTerm term = this.bnodeLabels.get(label);
-        if (term == null) {
-          term = RDFTerm.FromBlankNode(label);
-          this.bnodeLabels.put(label, term);
-        }
-        return term;
+        this.termKind = RDFTerm.BLANK;
+        this.termValue = this.ReadBlankNodeLabel();
+        this.termTypeOrLanguage = null;
       } else {
         throw new ParserException();
       }
     }
 
     private String ReadStringLiteral(int ch) {
-      StringBuilder ilist = new StringBuilder();
+      if (ch == '\"' && this.validating) {
+        while (true) {
+          int c2 = this.input.ScanUntil(StringDelimiter, null);
+          if (c2 < 0x20 || c2 > 0x7e) {
+            throw new ParserException();
+          } else if (c2 == '\\') {
+            this.ReadUnicodeEscape(true);
+          } else if (c2 == ch) {
+            return "";
+          }
+        }
+      }
+      if (ch == '\"') {
+        // Most literals have no escapes, and are taken from the
+        // input in one step
+        String str = this.input.ScanString(StringDelimiter, ch);
+        if (str != null) {
+          return str;
+        }
+      }
+      StringBuilder ilist = this.Scratch();
       while (true) {
-        int c2 = this.input.ReadChar();
+        int c2 = (ch == '\"') ? this.input.ScanUntil(StringDelimiter, ilist) :
+          this.input.ReadChar();
         if (c2 < 0x20 || c2 > 0x7e) {
           throw new ParserException();
         } else if (c2 == '\\') {
@@ -338,26 +1235,55 @@ licensed under the Unlicense: https://unlicense.org/
       int ch = this.input.ReadChar();
 
       this.input.SetMarkPosition(mark);
-      RDFTerm subject = this.ReadObject(false);
+      this.ReadTerm(false);
+      RDFTerm subject = this.NewTerm();
+      RDFTerm predicate = this.NewIri(this.ReadPredicate());
+      this.ReadTerm(true);
+      RDFTerm obj = this.NewTerm();
+      this.ReadEndOfTriple();
+      if (this.validating) {
+        ++this.validatedTriples;
+        return null;
+      }
+      return new RDFTriple(subject, predicate, obj);
+    }
+
+    // Reads a triple as IDs of its terms and passes it to the ID
+    // sink
+    private void ReadTripleIds() {
+      this.ReadTerm(false);
+      int subject = this.TermId();
+      int predicate = this.idTable.Add(RDFTerm.IRI, null, this.ReadPredicate());
+      this.ReadTerm(true);
+      int obj = this.TermId();
+      this.ReadEndOfTriple();
+      this.idSink.AddTriple(subject, predicate, obj);
+    }
+
+    // Reads the predicate of a triple, which has whitespace before
+    // and after it, and returns its IRI
+    private String ReadPredicate() {
       if (!this.SkipWhitespace()) {
         throw new ParserException();
       }
       if (this.input.ReadChar() != '<') {
         throw new ParserException();
       }
-      RDFTerm predicate = RDFTerm.FromIRI(this.ReadIriReference());
+      String iri = this.ReadIriReference();
       if (!this.SkipWhitespace()) {
         throw new ParserException();
       }
-      RDFTerm obj = this.ReadObject(true);
+      return iri;
+    }
+
+    // Reads the period that ends a triple and the rest of its line
+    private void ReadEndOfTriple() {
       this.SkipWhitespace();
       if (this.input.ReadChar() != '.') {
         throw new ParserException();
       }
       this.SkipWhitespace();
-      RDFTriple ret = new RDFTriple(subject, predicate, obj);
       this.EndOfLine(this.input.ReadChar());
-      return ret;
     }
 
     private int ReadUnicodeEscape(boolean extended) {
@@ -419,18 +1345,12 @@ licensed under the Unlicense: https://unlicense.org/
     }
 
     private boolean SkipWhitespace() {
-      boolean haveWhitespace = false;
-      this.input.SetSoftMark();
-      while (true) {
-        int ch = this.input.ReadChar();
-        if (ch != 0x09 && ch != 0x20) {
-          if (ch >= 0) {
-            this.input.MoveBack(1);
-          }
-          return haveWhitespace;
-        }
-        haveWhitespace = true;
+      int start = this.input.SetSoftMark();
+      int ch = this.input.ScanUntil(NonWhitespace, null);
+      if (ch >= 0) {
+        this.input.MoveBack(1);
       }
+      return this.input.GetMarkPosition() > start;
     }
 
     private static int ToHexValue(int a) {
@@ -0,0 +1,119 @@
+package com.upokecenter.rdf;
+
+import java.nio.*;
+import java.util.*;
+import java.util.function.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A spliterator over the triples in a range of N-Triples bytes. It splits by
+   * cutting the range at a line boundary, so that each part can be parsed
+   * independently by its own parser.
+   */
+  final class NTriplesSpliterator implements Spliterator<RDFTriple> {
+    // Ranges smaller than this are not split further
+    private static final int MinSplitSize = 1 << 16;
+
+    // Rough average length of an N-Triples line, used only
+    // to estimate the number of triples in a range
+    private static final int AverageLineLength = 100;
+
+    private final NTriplesParser parent;
+    private final ByteBuffer buffer;
+    private int start;
+    private final int end;
+    private Iterator<RDFTriple> iterator;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.NTriplesSpliterator} class.
+     * @param parent The parser whose settings the parsers of each part take.
+     * @param buffer A buffer holding N-Triples data. Only absolute reads are done
+     * on it, so its position and limit are not changed.
+     * @param start Index of the first byte of the range to parse. Must be the
+     * start of a line.
+     * @param end Index just past the last byte of the range to parse.
+     */
+    public NTriplesSpliterator(
+      NTriplesParser parent,
+      ByteBuffer buffer,
+      int start,
+      int end) {
+      this.parent = parent;
+      this.buffer = buffer;
+      this.start = start;
+      this.end = end;
+    }
+
+    public boolean tryAdvance(Consumer<? super RDFTriple> action) {
+      if (action == null) {
+        throw new NullPointerException("action");
+      }
+      if (this.iterator == null) {
+        this.iterator = this.CreateParser(this.start, this.end).ParseIterator();
+      }
+      if (!this.iterator.hasNext()) {
+        return false;
+      }
+      action.accept(this.iterator.next());
+      return true;
+    }
+
+    public Spliterator<RDFTriple> trySplit() {
+      if (this.iterator != null || this.end - this.start < MinSplitSize) {
+        // Parsing has already begun, or the range is too small
+        return null;
+      }
+      int mid = this.start + ((this.end - this.start) >> 1);
+      int lineStart = -1;
+      for (int i = mid; i < this.end; ++i) {
+        byte b = this.buffer.get(i);
+        if (b == 0x0a) {
+          lineStart = i + 1;
+          break;
+        } else if (b == 0x0d) {
+          lineStart = (i + 1 < this.end && this.buffer.get(i + 1) == 0x0a) ?
+            i + 2 : i + 1;
+          break;
+        }
+      }
+      if (lineStart < 0 || lineStart >= this.end) {
+        return null;
+      }
+      NTriplesSpliterator prefix = new NTriplesSpliterator(
+        this.parent,
+        this.buffer,
+        this.start,
+        lineStart);
+      this.start = lineStart;
+      return prefix;
+    }
+
+    public long estimateSize() {
+      if (this.iterator != null && !this.iterator.hasNext()) {
+        return 0;
+      }
+      return Math.max(1, (this.end - this.start) / AverageLineLength);
+    }
+
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    private NTriplesParser CreateParser(int rangeStart, int rangeEnd) {
+      ByteBuffer range = this.buffer.duplicate();
+      // NOTE: Cast to Buffer for compatibility with Java 8
+      ((Buffer)range).limit(rangeEnd);
+      ((Buffer)range).position(rangeStart);
+      // The buffer constructor reads the range directly rather
+      // than a byte at a time
+      return this.parent.NewPartParser(new NTriplesParser(range));
+    }
+  }
@@ -0,0 +1,129 @@
+package com.upokecenter.rdf;
+
+import java.util.function.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Holds a parser's limits on the number of triples and bytes read and its
+   * cancellation check, and decides, between statements, whether parsing
+   * should stop.
+   */
+  final class ParseLimiter {
+    private long maxTriples = Long.MAX_VALUE;
+    private long maxBytes = Long.MAX_VALUE;
+    private BooleanSupplier cancellation;
+    private IByteCounter counter;
+    private long tripleCount;
+    private boolean stopped;
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.ParseLimiter}
+     * class.
+     * @param counter The input whose bytes count toward the byte limit, or
+     * null if the byte limit doesn't apply.
+     */
+    public ParseLimiter(IByteCounter counter) {
+      this.counter = counter;
+    }
+
+    // Starts counting again for a new input, keeping the limits
+    void Reset(IByteCounter counter) {
+      this.counter = counter;
+      this.tripleCount = 0;
+      this.stopped = false;
+    }
+
+    long GetMaxTriples() {
+      return this.maxTriples;
+    }
+
+    void SetMaxTriples(long value) {
+      if (value < 0) {
+        throw new IllegalArgumentException("value(" + value +
+          ") is less than 0");
+      }
+      this.maxTriples = value;
+    }
+
+    long GetMaxBytes() {
+      return this.maxBytes;
+    }
+
+    void SetMaxBytes(long value) {
+      if (value < 0) {
+        throw new IllegalArgumentException("value(" + value +
+          ") is less than 0");
+      }
+      this.maxBytes = value;
+    }
+
+    BooleanSupplier GetCancellation() {
+      return this.cancellation;
+    }
+
+    void SetCancellation(BooleanSupplier value) {
+      this.cancellation = value;
+    }
+
+    /**
+     * Gets a value indicating whether a limit or the cancellation check
+     * stopped parsing before the end of the input.
+     * @return Either {@code true} or {@code false}.
+     */
+    boolean IsStopped() {
+      return this.stopped;
+    }
+
+    /**
+     * Gets a value indicating whether any limit or cancellation check is set.
+     * @return Either {@code true} or {@code false}.
+     */
+    boolean IsLimited() {
+      return this.maxTriples != Long.MAX_VALUE ||
+        this.maxBytes != Long.MAX_VALUE || this.cancellation != null;
+    }
+
+    /**
+     * Wraps a triple sink so that it receives no more than the maximum number
+     * of triples; further triples of the statement that reaches the maximum
+     * are dropped.
+     * @param sink The sink to wrap.
+     * @return The wrapped sink, or {@code sink} itself if there's no triple
+     * limit.
+     */
+    ITripleSink Wrap(final ITripleSink sink) {
+      if (this.maxTriples == Long.MAX_VALUE) {
+        return sink;
+      }
+      return new ITripleSink() {
+        public void AddTriple(RDFTriple triple) {
+          if (ParseLimiter.this.tripleCount < ParseLimiter.this.maxTriples) {
+            ++ParseLimiter.this.tripleCount;
+            sink.AddTriple(triple);
+          }
+        }
+      };
+    }
+
+    /**
+     * Checks, between statements, whether parsing should stop.
+     * @return {@code true} if a limit was reached or the cancellation check
+     * returned {@code true}; otherwise, {@code false}.
+     */
+    boolean ShouldStop() {
+      if (!this.stopped) {
+        this.stopped = this.tripleCount >= this.maxTriples ||
+          (this.counter != null &&
+            this.counter.GetByteCount() >= this.maxBytes) ||
+          (this.cancellation != null && this.cancellation.getAsBoolean());
+      }
+      return this.stopped;
+    }
+  }
@@ -1,5 +1,6 @@
 package com.upokecenter.rdf;
 
+import java.nio.*;
 import java.util.*;
 
 import com.upokecenter.util.*;
@@ -14,6 +15,42 @@ licensed under the Unlicense: https://unlicense.org/
   final class RDFInternal {
 private RDFInternal() {
 }
+    static ByteBuffer Duplicate(ByteBuffer buffer) {
+      if (buffer == null) {
+        throw new NullPointerException("buffer");
+      }
+      return buffer.duplicate();
+    }
+
+    // Gets the number of characters the parser has consumed from the
+    // specified input, or -1 if that isn't known
+    static long GetPosition(
+      ByteCountingInput counter,
+      IMarkableCharacterInput input) {
+      if (input instanceof Utf8CharacterInput) {
+        return ((Utf8CharacterInput)input).GetCharCount();
+      }
+      if (input instanceof AsciiCharacterInput) {
+        return ((AsciiCharacterInput)input).GetCharCount();
+      }
+      if (input instanceof StringCharacterInput) {
+        return ((StringCharacterInput)input).GetCharCount();
+      }
+      if (counter == null || !(input instanceof StackableCharacterInput)) {
+        return -1;
+      }
+      return counter.GetCharCount() -
+        ((StackableCharacterInput)input).GetUnreadCount();
+    }
+
+    static ITripleSink ToSink(final Collection<RDFTriple> triples) {
+      return new ITripleSink() {
+        public void AddTriple(RDFTriple triple) {
+          triples.add(triple);
+        }
+      };
+    }
+
     /**
      * Not documented yet.
      * @param triples The parameter {@code triples} is
@@ -24,9 +61,6 @@ private RDFInternal() {
     static void ReplaceBlankNodes(
       Set<RDFTriple> triples,
       Map<String, RDFTerm> bnodeLabels) {
-      if (bnodeLabels.size() == 0) {
-        return;
-      }
       Map<String, RDFTerm> newBlankNodes = new
       HashMap<String, RDFTerm>();
       List<RDFTriple[]> changedTriples = new ArrayList<RDFTriple[]>();
@@ -85,26 +119,30 @@ private RDFInternal() {
       }
     }
 
-    private static String SuggestBlankNodeName(
-      String node,
-      int[] nodeindex,
-      Map<String, RDFTerm> bnodeLabels) {
-      boolean validnode = node.length() > 0;
-      // Check if the blank node label is valid
-      // under N-Triples
+    // Checks if the blank node label is valid
+    // under N-Triples
+    static boolean IsValidNTriplesLabel(String node) {
+      if (node.length() == 0) {
+        return false;
+      }
       for (int i = 0; i < node.length(); ++i) {
         int c = node.charAt(i);
         if (i == 0 && !((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))) {
-          validnode = false;
-          break;
+          return false;
         }
         if (i >= 0 && !((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
           (c >= 'a' && c <= 'z'))) {
-          validnode = false;
-          break;
+          return false;
         }
       }
-      if (validnode) {
+      return true;
+    }
+
+    private static String SuggestBlankNodeName(
+      String node,
+      int[] nodeindex,
+      Map<String, RDFTerm> bnodeLabels) {
+      if (IsValidNTriplesLabel(node)) {
         return node;
       }
       while (true) {
@@ -131,14 +131,23 @@ licensed under the Unlicense: https://unlicense.org/
       }
     }
 
+    // Kind of an IRI held in two parts, a namespace IRI in
+    // typeOrLanguage and a local name in value, so that the terms of
+    // a namespace share its string. GetKind reports it as IRI.
+    private static final int PrefixedIri = 4;
+
     private final String typeOrLanguage;
     private final String value;
     private final int kind;
 
+    // Hash code, computed when the term is created
+    private final int hash;
+
     private RDFTerm(int kind, String typeOrLanguage, String value) {
       this.kind = kind;
       this.typeOrLanguage = typeOrLanguage;
       this.value = value;
+      this.hash = this.ComputeHashCode();
     }
 
     /**
@@ -209,6 +218,24 @@ licensed under the Unlicense: https://unlicense.org/
       return new RDFTerm(IRI, null, iri);
     }
 
+    // Makes an IRI term from a namespace IRI and a local name, which
+    // are concatenated only when GetValue is called
+    static RDFTerm FromIRI(String namespaceIri, String localName) {
+      if (namespaceIri == null) {
+        throw new NullPointerException("namespaceIri");
+      }
+      if (localName == null) {
+        throw new NullPointerException("localName");
+      }
+      if (localName.length() == 0) {
+        return FromIRI(namespaceIri);
+      }
+      if (namespaceIri.length() == 0) {
+        return FromIRI(localName);
+      }
+      return new RDFTerm(PrefixedIri, namespaceIri, localName);
+    }
+
     /**
      * Not documented yet.
      * @param str The parameter {@code str} is a text string.
@@ -275,21 +302,73 @@ licensed under the Unlicense: https://unlicense.org/
       if (other == null) {
         return false;
       }
-      if (this.kind != other.kind) {
+      // Terms whose hash codes differ aren't equal
+      if (this.hash != other.hash) {
         return false;
       }
-      if (this.typeOrLanguage == null) {
-        if (other.typeOrLanguage != null) {
+      if (this.GetKind() != other.GetKind()) {
+        return false;
+      }
+      String typeOrLang = this.GetTypeOrLanguage();
+      if (typeOrLang == null) {
+        if (other.GetTypeOrLanguage() != null) {
           return false;
         }
-      } else if (!this.typeOrLanguage.equals(other.typeOrLanguage)) {
+      } else if (!typeOrLang.equals(other.GetTypeOrLanguage())) {
         return false;
       }
-      if (this.value == null) {
-        return other.value != null;
-      } else {
-        return !this.value.equals(other.value);
+      return this.ValueEquals(other);
+    }
+
+    // Gets whether this term's value equals that of another term,
+    // without concatenating the parts of prefixed IRIs
+    private boolean ValueEquals(RDFTerm other) {
+      if (other.kind != PrefixedIri) {
+        return this.ValueEquals(other.value);
+      }
+      if (this.kind != PrefixedIri) {
+        return other.ValueEquals(this.value);
+      }
+      if (this.typeOrLanguage == other.typeOrLanguage) {
+        // Same namespace string
+        return this.value.equals(other.value);
+      }
+      if (this.typeOrLanguage.length() + this.value.length() !=
+        other.typeOrLanguage.length() + other.value.length()) {
+        return false;
       }
+      // The values are split in different places; a1 + a2 is
+      // compared with b1 + b2, where a1 is no longer than b1
+      boolean thisFirst = this.typeOrLanguage.length() <=
+        other.typeOrLanguage.length();
+      String a1 = thisFirst ? this.typeOrLanguage : other.typeOrLanguage;
+      String a2 = thisFirst ? this.value : other.value;
+      String b1 = thisFirst ? other.typeOrLanguage : this.typeOrLanguage;
+      String b2 = thisFirst ? other.value : this.value;
+      int split = b1.length() - a1.length();
+      return b1.startsWith(a1) &&
+        a2.regionMatches(0, b1, a1.length(), split) &&
+        a2.regionMatches(split, b2, 0, b2.length());
+    }
+
+    private boolean ValueEquals(String str) {
+      if (this.kind != PrefixedIri) {
+        return this.value.equals(str);
+      }
+      String ns = this.typeOrLanguage;
+      return str.length() == ns.length() + this.value.length() &&
+        str.startsWith(ns) && str.startsWith(this.value, ns.length());
+    }
+
+    // Gets the first part of this term's value, which is the
+    // namespace of a prefixed IRI and empty otherwise
+    String GetValuePrefix() {
+      return (this.kind == PrefixedIri) ? this.typeOrLanguage : "";
+    }
+
+    // Gets the rest of this term's value after GetValuePrefix
+    String GetValueSuffix() {
+      return this.value;
     }
 
     /**
@@ -297,7 +376,7 @@ licensed under the Unlicense: https://unlicense.org/
      * @return A 32-bit signed integer.
      */
     public int GetKind() {
-      return this.kind;
+      return (this.kind == PrefixedIri) ? IRI : this.kind;
     }
 
     /**
@@ -305,7 +384,7 @@ licensed under the Unlicense: https://unlicense.org/
      * @return A text string.
      */
     public String GetTypeOrLanguage() {
-      return this.typeOrLanguage;
+      return (this.kind == PrefixedIri) ? null : this.typeOrLanguage;
     }
 
     /**
@@ -313,7 +392,8 @@ licensed under the Unlicense: https://unlicense.org/
      * @return A text string.
      */
     public String GetValue() {
-      return this.value;
+      return (this.kind == PrefixedIri) ? this.typeOrLanguage + this.value :
+        this.value;
     }
 
     /**
@@ -321,17 +401,40 @@ licensed under the Unlicense: https://unlicense.org/
      * @return The return value is not documented yet.
      */
     @Override public final int hashCode() {
+      return this.hash;
+    }
+
+    private int ComputeHashCode() {
       {
         int prime = 31;
-        int result = prime + this.kind;
-        result = (prime * result) + ((this.typeOrLanguage == null) ? 0 :
-          this.typeOrLanguage.hashCode());
-        boolean isnull = this.value == null;
-        result = (prime * result) + (isnull ? 0 : this.value.hashCode());
+        int result = prime + this.GetKind();
+        String typeOrLang = this.GetTypeOrLanguage();
+        result = (prime * result) + ((typeOrLang == null) ? 0 :
+          typeOrLang.hashCode());
+        int valueHash = this.value.hashCode();
+        if (this.kind == PrefixedIri) {
+          // Same as the hash code of the concatenated value
+          valueHash += this.typeOrLanguage.hashCode() *
+            Pow31(this.value.length());
+        }
+        result = (prime * result) + valueHash;
         return result;
       }
     }
 
+    private static int Pow31(int exponent) {
+      int result = 1;
+      int power = 31;
+      while (exponent != 0) {
+        if ((exponent & 1) != 0) {
+          result *= power;
+        }
+        power *= power;
+        exponent >>= 1;
+      }
+      return result;
+    }
+
     /**
      * Gets a value indicating whether this term is a blank node.
      * @return Either {@code true} or {@code false}.
@@ -346,10 +449,10 @@ licensed under the Unlicense: https://unlicense.org/
      * @return Either {@code true} or {@code false}.
      */
     public boolean IsIRI(String str) {
-      return this.kind == IRI && str != null && str.equals(this.value);
+      return this.GetKind() == IRI && str != null && this.ValueEquals(str);
     }
 
-    private static final String XmlSchemaString =
+    static final String XmlSchemaString =
       "http://www.w3.org/2001/XMLSchema#String";
 
     /**
@@ -388,10 +491,10 @@ licensed under the Unlicense: https://unlicense.org/
           EscapeString(this.typeOrLanguage, builder, true);
           builder.append(">");
         }
-      } else if (this.kind == IRI) {
+      } else if (this.kind == IRI || this.kind == PrefixedIri) {
         builder = new StringBuilder();
         builder.append("<");
-        EscapeString(this.value, builder, true);
+        EscapeString(this.GetValue(), builder, true);
         builder.append(">");
       } else {
         return "<>";
@@ -16,6 +16,9 @@ licensed under the Unlicense: https://unlicense.org/
     private final RDFTerm predicate;
     private final RDFTerm objectRdf;
 
+    // Hash code, computed when the triple is created
+    private final int hash;
+
     /**
      * Initializes a new instance of the {@link com.upokecenter.rdf.RDFTriple}
      * class.
@@ -49,6 +52,10 @@ licensed under the Unlicense: https://unlicense.org/
           "\u0020subject.kind==RDFTerm.BLANK");
       }
       this.subject = subject;
+      int prime = 31;
+      int result = prime + objectRdf.hashCode();
+      result = (prime * result) + predicate.hashCode();
+      this.hash = (prime * result) + subject.hashCode();
     }
 
     /**
@@ -83,25 +90,19 @@ licensed under the Unlicense: https://unlicense.org/
       if (other == null) {
         return false;
       }
-      if (this.objectRdf == null) {
-        if (other.objectRdf != null) {
-          return false;
-        }
-      } else if (!this.objectRdf.equals(other.objectRdf)) {
-        return false;
-      }
-      if (this.predicate == null) {
-        if (other.predicate != null) {
-          return false;
-        }
-      } else if (!this.predicate.equals(other.predicate)) {
+      // Triples whose hash codes differ aren't equal
+      if (this.hash != other.hash) {
         return false;
       }
-      if (this.subject == null) {
-        return other.subject != null;
-      } else {
-        return !this.subject.equals(other.subject);
-      }
+      // Terms read through a term dictionary are often the same
+      // objects, so they're compared by reference first; the
+      // predicate, which varies least, is compared last
+      return (this.subject == other.subject ||
+          this.subject.equals(other.subject)) &&
+        (this.objectRdf == other.objectRdf ||
+          this.objectRdf.equals(other.objectRdf)) &&
+        (this.predicate == other.predicate ||
+          this.predicate.equals(other.predicate));
     }
 
     /**
@@ -133,17 +134,7 @@ licensed under the Unlicense: https://unlicense.org/
      * @return The return value is not documented yet.
      */
     @Override public final int hashCode() {
-      {
-        int prime = 31;
-        int result = prime + ((this.objectRdf == null) ? 0 :
-          this.objectRdf.hashCode());
-        result = (prime * result) +
-          ((this.predicate == null) ? 0 : this.predicate.hashCode());
-        boolean subjnull = this.subject == null;
-        result = (prime * result) + (subjnull ? 0 :
-          this.subject.hashCode());
-        return result;
-      }
+      return this.hash;
     }
 
     /**
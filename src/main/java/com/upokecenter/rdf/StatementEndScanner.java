@@ -0,0 +1,129 @@
+package com.upokecenter.rdf;
+
+import java.nio.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Scans Turtle bytes as they arrive for periods that may end a statement,
+   * that is, periods outside IRIs, string literals and comments that aren't
+   * escaped. Every statement that yields triples ends with such a period, so
+   * an incremental parser needs to read an unfinished statement again only
+   * once one arrives.
+   */
+  final class StatementEndScanner {
+    private static final int Normal = 0;
+    private static final int Comment = 1;
+    private static final int Iri = 2;
+    private static final int Quotes = 3;
+    private static final int ShortString = 4;
+    private static final int LongString = 5;
+
+    private int state = Normal;
+    private int quote;
+    private int quoteCount;
+    private boolean escape;
+
+    // Whether the bytes scanned so far end with a period, followed by
+    // nothing or only by characters that can continue a number, so that
+    // the period may still end a statement once the bytes after it arrive
+    private boolean periodAtEnd;
+
+    /**
+     * Scans the remaining bytes of the specified buffer, which follow the bytes
+     * scanned so far.
+     * @param data A buffer holding the next bytes. Its position isn't changed.
+     * @return {@code true} if the bytes hold a period that may end a statement,
+     * or may complete such a period scanned before; otherwise, {@code false}.
+     */
+    public boolean Scan(ByteBuffer data) {
+      boolean found = this.periodAtEnd;
+      for (int i = data.position(); i < data.limit(); ++i) {
+        if (this.Step(data.get(i))) {
+          found = true;
+        }
+      }
+      return found;
+    }
+
+    // Scans one byte; returns whether it's a period that may end a
+    // statement
+    private boolean Step(int b) {
+      if (this.escape) {
+        this.escape = false;
+        return false;
+      }
+      switch (this.state) {
+        case Normal:
+          if (b == '.') {
+            this.periodAtEnd = true;
+            return true;
+          }
+          if (!((b >= '0' && b <= '9') || b == 'e' || b == 'E' || b == '+' ||
+            b == '-')) {
+            this.periodAtEnd = false;
+          }
+          if (b == '\\') {
+            // Escaped character in a local name
+            this.escape = true;
+          } else if (b == '#') {
+            this.state = Comment;
+          } else if (b == '<') {
+            this.state = Iri;
+          } else if (b == '\"' || b == '\'') {
+            this.state = Quotes;
+            this.quote = b;
+            this.quoteCount = 1;
+          }
+          return false;
+        case Comment:
+          if (b == 0x0a || b == 0x0d) {
+            this.state = Normal;
+          }
+          return false;
+        case Iri:
+          if (b == '>') {
+            this.state = Normal;
+          }
+          return false;
+        case Quotes:
+          if (b == this.quote) {
+            ++this.quoteCount;
+            if (this.quoteCount == 3) {
+              this.state = LongString;
+              this.quoteCount = 0;
+            }
+            return false;
+          }
+          // Two quotes are an empty string; one starts a short string
+          this.state = (this.quoteCount == 2) ? Normal : ShortString;
+          return this.Step(b);
+        case ShortString:
+          if (b == '\\') {
+            this.escape = true;
+          } else if (b == this.quote) {
+            this.state = Normal;
+          }
+          return false;
+        default:
+          if (b == '\\') {
+            this.escape = true;
+            this.quoteCount = 0;
+          } else if (b == this.quote) {
+            ++this.quoteCount;
+            if (this.quoteCount == 3) {
+              this.state = Normal;
+            }
+          } else {
+            this.quoteCount = 0;
+          }
+          return false;
+      }
+    }
+  }
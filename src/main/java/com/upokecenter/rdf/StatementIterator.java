@@ -0,0 +1,62 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * An iterator that reads RDF triples from a parser one statement at a time,
+   * holding only the triples of the most recently read statement.
+   */
+  abstract class StatementIterator implements Iterator<RDFTriple> {
+    private final List<RDFTriple> pending = new ArrayList<RDFTriple>();
+    private final ITripleSink sink = RDFInternal.ToSink(this.pending);
+    private int index;
+    private boolean done;
+
+    /**
+     * Reads the next statement from the parser and passes the triples it
+     * produces, if any, to the specified sink.
+     * @param sink The sink that receives the statement's triples.
+     * @return {@code false} if the end of the input was reached instead;
+     * otherwise, {@code true}.
+     */
+    protected abstract boolean ReadStatement(ITripleSink sink);
+
+    public boolean hasNext() {
+      while (this.index >= this.pending.size()) {
+        if (this.done) {
+          return false;
+        }
+        // Directives and comments produce no triples, so
+        // keep reading until a statement produces some
+        this.pending.clear();
+        this.index = 0;
+        if (!this.ReadStatement(this.sink)) {
+          this.done = true;
+          return false;
+        }
+      }
+      return true;
+    }
+
+    public RDFTriple next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      RDFTriple triple = this.pending.get(this.index);
+      this.pending.set(this.index, null);
+      ++this.index;
+      return triple;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
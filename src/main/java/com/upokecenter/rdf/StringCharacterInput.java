@@ -0,0 +1,350 @@
+package com.upokecenter.rdf;
+
+import java.util.function.*;
+
+import com.upokecenter.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A markable character input that reads the code points of a character
+   * sequence, such as a string, by indexing it directly. Marks are indices
+   * into the sequence, so setting a mark or moving back is plain arithmetic
+   * and nothing is buffered. Mark positions are measured in UTF-16 code
+   * units rather than code points; the parsers only subtract from a mark
+   * position to step back over an ASCII character, which is one unit long.
+   * Unpaired surrogates are read as the replacement character U+FFFD, as
+   * Encodings.StringToInput does.
+   */
+  final class StringCharacterInput implements IMarkableCharacterInput,
+      IByteCounter {
+    private CharSequence str;
+    private int pos;
+    private int limit;
+    private int markStart;
+    private boolean haveMark;
+
+    // Bytes, in UTF-8, of the characters before countedPos
+    private int countedPos;
+    private long countedBytes;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.StringCharacterInput} class.
+     * @param str The character sequence to read. It shouldn't change while
+     * it's read.
+     * @throws NullPointerException The parameter {@code str} is null.
+     */
+    public StringCharacterInput(CharSequence str) {
+      this.Reset(str);
+    }
+
+    /**
+     * Starts reading another character sequence, as though this object had
+     * just been created with it.
+     * @param str The character sequence to read.
+     * @throws NullPointerException The parameter {@code str} is null.
+     */
+    public void Reset(CharSequence str) {
+      if (str == null) {
+        throw new NullPointerException("str");
+      }
+      this.str = str;
+      this.pos = 0;
+      this.limit = str.length();
+      this.markStart = 0;
+      this.haveMark = false;
+      this.countedPos = 0;
+      this.countedBytes = 0;
+    }
+
+    /**
+     * Gets the number of bytes that the characters read so far take up in
+     * UTF-8. Characters read again after moving back aren't counted twice.
+     * @return The number of bytes read.
+     */
+    public long GetByteCount() {
+      CharSequence s = this.str;
+      int i = this.countedPos;
+      long bytes = this.countedBytes;
+      while (i < this.pos) {
+        char c = s.charAt(i);
+        if (c < 0x80) {
+          ++bytes;
+        } else if (c < 0x800) {
+          bytes += 2;
+        } else if (c >= 0xd800 && c <= 0xdbff && i + 1 < this.limit &&
+          s.charAt(i + 1) >= 0xdc00 && s.charAt(i + 1) <= 0xdfff) {
+          bytes += 4;
+          ++i;
+        } else {
+          bytes += 3;
+        }
+        ++i;
+      }
+      if (i > this.countedPos) {
+        this.countedPos = i;
+        this.countedBytes = bytes;
+      }
+      return this.countedBytes;
+    }
+
+    /**
+     * Gets the number of code points before the current position.
+     * @return The number of code points read.
+     */
+    public long GetCharCount() {
+      long count = 0;
+      for (int i = 0; i < this.pos; ++i) {
+        char c = this.str.charAt(i);
+        if (c >= 0xd800 && c <= 0xdbff && i + 1 < this.limit) {
+          char c2 = this.str.charAt(i + 1);
+          if (c2 >= 0xdc00 && c2 <= 0xdfff) {
+            ++i;
+          }
+        }
+        ++count;
+      }
+      return count;
+    }
+
+    // Gets the code point at the specified index, which is
+    // a surrogate
+    private int SurrogateAt(int index) {
+      char c = this.str.charAt(index);
+      if (c <= 0xdbff && index + 1 < this.limit) {
+        char c2 = this.str.charAt(index + 1);
+        if (c2 >= 0xdc00 && c2 <= 0xdfff) {
+          return 0x10000 + ((c - 0xd800) << 10) + (c2 - 0xdc00);
+        }
+      }
+      return 0xfffd;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int ReadChar() {
+      if (this.pos >= this.limit) {
+        return -1;
+      }
+      char c = this.str.charAt(this.pos);
+      if ((c & 0xf800) != 0xd800) {
+        ++this.pos;
+        return c;
+      }
+      int ch = this.SurrogateAt(this.pos);
+      this.pos += (ch >= 0x10000) ? 2 : 1;
+      return ch;
+    }
+
+    /**
+     * Not documented yet.
+     * @param buf The parameter {@code buf} is a.getInt32()[] object.
+     * @param offset The parameter {@code offset} is a 32-bit signed integer.
+     * @param unitCount The parameter {@code unitCount} is a 32-bit signed
+     * integer.
+     * @return A 32-bit signed integer.
+     * @throws NullPointerException The parameter {@code buf} is null.
+     */
+    public int Read(int[] buf, int offset, int unitCount) {
+      if (buf == null) {
+        throw new NullPointerException("buf");
+      }
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset(" + offset +
+          ") is less than 0");
+      }
+      if (unitCount < 0) {
+        throw new IllegalArgumentException("unitCount(" + unitCount +
+          ") is less than 0");
+      }
+      if (buf.length - offset < unitCount) {
+        throw new IllegalArgumentException("buf's length minus " + offset +
+          "(" + (buf.length - offset) + ") is less than " + unitCount);
+      }
+      if (unitCount == 0) {
+        return 0;
+      }
+      int count = 0;
+      while (count < unitCount) {
+        int ch = this.ReadChar();
+        if (ch < 0) {
+          break;
+        }
+        buf[offset + count] = ch;
+        ++count;
+      }
+      return (count == 0) ? -1 : count;
+    }
+
+    /**
+     * Reads characters until one of them matches the specified predicate or
+     * the end of the input is reached, appending the others to a string
+     * builder. Runs of characters are appended from the sequence in one
+     * call.
+     * @param delimiter A predicate that returns true for a Unicode code point
+     * that ends the scan.
+     * @param builder A string builder, or null to skip the characters read.
+     * @return The code point that matched the predicate, or -1 if the end of
+     * the input was reached first.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    public int ScanUntil(IntPredicate delimiter, StringBuilder builder) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      CharSequence s = this.str;
+      int runStart = this.pos;
+      int i = runStart;
+      int end = this.limit;
+      while (i < end) {
+        char c = s.charAt(i);
+        if ((c & 0xf800) != 0xd800) {
+          if (delimiter.test(c)) {
+            if (builder != null) {
+              builder.append(s, runStart, i);
+            }
+            this.pos = i + 1;
+            return c;
+          }
+          ++i;
+          continue;
+        }
+        int ch = this.SurrogateAt(i);
+        int length = (ch >= 0x10000) ? 2 : 1;
+        if (delimiter.test(ch)) {
+          if (builder != null) {
+            builder.append(s, runStart, i);
+          }
+          this.pos = i + length;
+          return ch;
+        }
+        if (ch < 0x10000) {
+          // Unpaired surrogate, appended as U+FFFD
+          if (builder != null) {
+            builder.append(s, runStart, i);
+            builder.append((char)0xfffd);
+          }
+          runStart = i + 1;
+        }
+        i += length;
+      }
+      if (builder != null) {
+        builder.append(s, runStart, end);
+      }
+      this.pos = end;
+      return -1;
+    }
+
+    /**
+     * Reads a run of characters that ends with the specified character and
+     * returns the characters before it as a string, taken from the sequence
+     * in one step. Runs containing surrogates aren't read this way.
+     * @param delimiter A predicate that returns true for a Unicode code point
+     * that ends the run, including {@code end}.
+     * @param end The code point expected to end the run.
+     * @return The characters before {@code end}, which was read, or null if
+     * nothing was read.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    public String ScanString(IntPredicate delimiter, int end) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      CharSequence s = this.str;
+      int start = this.pos;
+      for (int i = start; i < this.limit; ++i) {
+        char c = s.charAt(i);
+        if ((c & 0xf800) == 0xd800) {
+          return null;
+        }
+        if (delimiter.test(c)) {
+          if (c != end || i == start) {
+            return null;
+          }
+          this.pos = i + 1;
+          return s.subSequence(start, i).toString();
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int GetMarkPosition() {
+      return this.pos - this.markStart;
+    }
+
+    /**
+     * Not documented yet.
+     * @param count The parameter {@code count} is a 32-bit signed integer.
+     */
+    public void MoveBack(int count) {
+      if (count < 0) {
+        throw new IllegalArgumentException("count(" + count +
+          ") is not greater or equal to 0");
+      }
+      if (!this.haveMark) {
+        throw new IllegalStateException();
+      }
+      int newPos = this.pos;
+      while (count > 0) {
+        if (newPos <= this.markStart) {
+          throw new IllegalStateException();
+        }
+        --newPos;
+        // Step back over both halves of a surrogate pair
+        char c = this.str.charAt(newPos);
+        if (c >= 0xdc00 && c <= 0xdfff && newPos > this.markStart) {
+          char c2 = this.str.charAt(newPos - 1);
+          if (c2 >= 0xd800 && c2 <= 0xdbff) {
+            --newPos;
+          }
+        }
+        --count;
+      }
+      this.pos = newPos;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int SetHardMark() {
+      this.markStart = this.pos;
+      this.haveMark = true;
+      return 0;
+    }
+
+    /**
+     * Not documented yet.
+     * @param pos The parameter {@code pos} is a 32-bit signed integer.
+     */
+    public void SetMarkPosition(int pos) {
+      if (!this.haveMark || pos < 0 || pos > this.limit - this.markStart) {
+        throw new IllegalStateException();
+      }
+      this.pos = this.markStart + pos;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int SetSoftMark() {
+      if (!this.haveMark) {
+        this.SetHardMark();
+      }
+      return this.GetMarkPosition();
+    }
+  }
@@ -0,0 +1,312 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A dictionary that a parser can use to intern the IRIs, datatype IRIs and
+   * language tags it reads, so that each one that repeats is represented by
+   * one term or string, however many triples it appears in. The dictionary
+   * holds a limited number of entries; when it's full, an entry that wasn't
+   * used recently is evicted, chosen by the clock algorithm, which
+   * approximates evicting the entry used least recently. It also counts
+   * its lookups, so that the hit rate can be checked to tune its size. One
+   * dictionary can be shared by several parsers, including parsers used at
+   * the same time from different threads, such as those of a parallel
+   * stream. Looking up an entry the dictionary holds takes no lock, so
+   * those threads wait for each other only while adding entries.
+   */
+  public final class TermDictionary {
+    /**
+     * The maximum number of entries of a dictionary created with the
+     * constructor that takes no arguments.
+     */
+    public static final int DefaultMaxSize = 1 << 16;
+
+    // Map that holds up to a maximum number of entries. Looking up a
+    // key takes no lock. Each entry has a flag that's set when the
+    // entry is used; when the map is full, a clock hand passes over
+    // the entries in the order they were added, clearing the flags
+    // that are set, and evicts the first entry whose flag is clear.
+    private static final class ClockMap<T> {
+      private static final class Entry<T> {
+        private final T value;
+
+        // Only a hint, so it isn't volatile; a flag set by one
+        // thread and missed by another just lets the entry be evicted
+        // sooner
+        private boolean used;
+
+        public Entry(T value) {
+          this.value = value;
+        }
+      }
+
+      private final ConcurrentHashMap<String, Entry<T>> map;
+      private final int maxSize;
+
+      // Keys of the entries, in the slots the clock hand passes over;
+      // the fields below are used only while holding this object's lock
+      private String[] keys;
+      private int count;
+      private int hand;
+      private long evictions;
+
+      public ClockMap(int maxSize) {
+        this.map = new ConcurrentHashMap<String, Entry<T>>();
+        this.maxSize = maxSize;
+        this.keys = new String[Math.min(maxSize, 16)];
+      }
+
+      // Returns the value for the key, or null if the map doesn't
+      // hold the key
+      public T Get(String key) {
+        Entry<T> entry = this.map.get(key);
+        if (entry == null) {
+          return null;
+        }
+        if (!entry.used) {
+          entry.used = true;
+        }
+        return entry.value;
+      }
+
+      // Adds the key with the specified value, unless another thread
+      // added the key first; returns the value the map then holds
+      public synchronized T Add(String key, T value) {
+        Entry<T> entry = this.map.get(key);
+        if (entry != null) {
+          entry.used = true;
+          return entry.value;
+        }
+        int slot;
+        if (this.count < this.maxSize) {
+          if (this.count == this.keys.length) {
+            this.keys = Arrays.copyOf(
+              this.keys,
+              Math.min(this.maxSize, this.count * 2));
+          }
+          slot = this.count++;
+        } else {
+          while (true) {
+            slot = this.hand;
+            this.hand = (slot + 1 == this.maxSize) ? 0 : slot + 1;
+            Entry<T> oldEntry = this.map.get(this.keys[slot]);
+            if (!oldEntry.used) {
+              this.map.remove(this.keys[slot]);
+              ++this.evictions;
+              break;
+            }
+            oldEntry.used = false;
+          }
+        }
+        this.keys[slot] = key;
+        this.map.put(key, new Entry<T>(value));
+        return value;
+      }
+
+      public int Size() {
+        return this.map.size();
+      }
+
+      public synchronized long GetEvictions() {
+        return this.evictions;
+      }
+
+      public synchronized void ResetEvictions() {
+        this.evictions = 0;
+      }
+
+      public synchronized void Clear() {
+        this.map.clear();
+        Arrays.fill(this.keys, null);
+        this.count = 0;
+        this.hand = 0;
+      }
+    }
+
+    private final int maxSize;
+    private final ClockMap<RDFTerm> iris;
+    private final ClockMap<String> languageTags;
+
+    // Lookups are counted without a lock; lookups that find no entry
+    // are rare, and are counted while adding the entry
+    private final LongAdder lookups;
+    private long misses;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.TermDictionary} class that holds up to
+     * DefaultMaxSize IRIs and as many language tags.
+     */
+    public TermDictionary() {
+ this(DefaultMaxSize);
+    }
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.TermDictionary} class.
+     * @param maxSize The maximum number of IRIs the dictionary holds, which is
+     * also the maximum number of language tags it holds.
+     * @throws IllegalArgumentException The parameter {@code maxSize} is less
+     * than 1.
+     */
+    public TermDictionary(int maxSize) {
+      if (maxSize < 1) {
+        throw new IllegalArgumentException("maxSize(" + maxSize +
+          ") is less than 1");
+      }
+      this.maxSize = maxSize;
+      this.iris = new ClockMap<RDFTerm>(maxSize);
+      this.languageTags = new ClockMap<String>(maxSize);
+      this.lookups = new LongAdder();
+    }
+
+    /**
+     * Gets the term for the specified IRI, which is the same object each time
+     * the IRI is looked up while it's in the dictionary.
+     * @param iri An IRI.
+     * @return An RDF term for the IRI.
+     * @throws NullPointerException The parameter {@code iri} is null.
+     */
+    public RDFTerm GetIri(String iri) {
+      if (iri == null) {
+        throw new NullPointerException("iri");
+      }
+      this.lookups.increment();
+      RDFTerm term = this.iris.Get(iri);
+      if (term != null) {
+        return term;
+      }
+      RDFTerm newTerm = RDFTerm.FromIRI(iri);
+      term = this.iris.Add(iri, newTerm);
+      if (term == newTerm) {
+        this.CountMiss();
+      }
+      return term;
+    }
+
+    /**
+     * Gets a string equal to the specified datatype IRI, which is the same
+     * object each time the IRI is looked up while it's in the dictionary.
+     * Datatype IRIs share their entries with the IRIs of GetIri.
+     * @param iri A datatype IRI.
+     * @return A string equal to {@code iri}.
+     * @throws NullPointerException The parameter {@code iri} is null.
+     */
+    public String GetDatatype(String iri) {
+      return this.GetIri(iri).GetValue();
+    }
+
+    /**
+     * Gets a string equal to the specified language tag, which is the same
+     * object each time the tag is looked up while it's in the dictionary.
+     * Tags that differ only in case are different entries.
+     * @param languageTag A language tag.
+     * @return A string equal to {@code languageTag}.
+     * @throws NullPointerException The parameter {@code languageTag} is null.
+     */
+    public String GetLanguageTag(String languageTag) {
+      if (languageTag == null) {
+        throw new NullPointerException("languageTag");
+      }
+      this.lookups.increment();
+      String tag = this.languageTags.Get(languageTag);
+      if (tag != null) {
+        return tag;
+      }
+      tag = this.languageTags.Add(languageTag, languageTag);
+      if (tag == languageTag) {
+        this.CountMiss();
+      }
+      return tag;
+    }
+
+    private synchronized void CountMiss() {
+      ++this.misses;
+    }
+
+    /**
+     * Gets the maximum number of IRIs, and of language tags, this dictionary
+     * holds.
+     * @return The maximum number of entries of each kind.
+     */
+    public int GetMaxSize() {
+      return this.maxSize;
+    }
+
+    /**
+     * Gets the number of IRIs and language tags this dictionary holds. While
+     * other threads use the dictionary, the number may be out of date by the
+     * time it's returned.
+     * @return The number of entries.
+     */
+    public int GetCount() {
+      return this.iris.Size() + this.languageTags.Size();
+    }
+
+    /**
+     * Gets the number of lookups since this dictionary was created or its
+     * statistics were reset.
+     * @return The number of lookups.
+     */
+    public long GetLookupCount() {
+      return this.lookups.sum();
+    }
+
+    /**
+     * Gets the number of lookups that found an entry already in the
+     * dictionary.
+     * @return The number of hits.
+     */
+    public synchronized long GetHitCount() {
+      // Lookups still in progress may be counted without their misses
+      return Math.max(0, this.lookups.sum() - this.misses);
+    }
+
+    /**
+     * Gets the fraction of lookups that found an entry already in the
+     * dictionary.
+     * @return A number from 0 through 1, which is 0 if there were no lookups.
+     */
+    public synchronized double GetHitRate() {
+      long lookupCount = this.lookups.sum();
+      return (lookupCount == 0) ? 0.0 :
+        (double)Math.max(0, lookupCount - this.misses) / lookupCount;
+    }
+
+    /**
+     * Gets the number of entries evicted to make room for others.
+     * @return The number of evictions.
+     */
+    public long GetEvictionCount() {
+      return this.iris.GetEvictions() + this.languageTags.GetEvictions();
+    }
+
+    /**
+     * Sets the lookup, hit and eviction counts to 0.
+     */
+    public synchronized void ResetStatistics() {
+      this.lookups.reset();
+      this.misses = 0;
+      this.iris.ResetEvictions();
+      this.languageTags.ResetEvictions();
+    }
+
+    /**
+     * Removes all entries from this dictionary. The statistics are kept.
+     */
+    public void Clear() {
+      this.iris.Clear();
+      this.languageTags.Clear();
+    }
+  }
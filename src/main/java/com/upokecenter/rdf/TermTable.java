@@ -0,0 +1,296 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A growable table that numbers RDF terms, for parsing triples into
+   * integer IDs. Each distinct term gets the next ID, starting at 0, the
+   * first time it's added, and keeps it for as long as the table exists.
+   * The table holds the parts of each term (its kind, value and datatype or
+   * language tag) in arrays rather than as RDFTerm objects; an RDFTerm is
+   * made only when GetTerm is called. The blank nodes of each document
+   * parsed into the table are kept apart from those of other documents: a
+   * blank node keeps its label unless a blank node already in the table
+   * has it or the label isn't valid under N-Triples, in which case it gets
+   * a generated label. Add, on the other hand, identifies blank nodes by
+   * their labels. This class isn't safe for use by several threads at
+   * once.
+   */
+  public final class TermTable {
+    private static final int InitialCapacity = 64;
+
+    private byte[] kinds;
+    private String[] values;
+    private String[] typesOrLanguages;
+    private int[] hashes;
+    private int count;
+
+    // Generated blank node labels are "b" followed by a number
+    // less than this one
+    private int nextBlankIndex;
+
+    // Open-addressed index of the terms by hash; each slot holds a
+    // term's ID plus 1, or 0 if it's empty. Kept at most half full.
+    private int[] slots;
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.TermTable}
+     * class.
+     */
+    public TermTable() {
+      this.kinds = new byte[InitialCapacity];
+      this.values = new String[InitialCapacity];
+      this.typesOrLanguages = new String[InitialCapacity];
+      this.hashes = new int[InitialCapacity];
+      this.slots = new int[InitialCapacity * 2];
+    }
+
+    /**
+     * Gets the number of terms in this table, which is also the ID the next
+     * new term gets.
+     * @return The number of terms.
+     */
+    public int GetCount() {
+      return this.count;
+    }
+
+    /**
+     * Gets the ID of the specified term, adding the term to this table if
+     * it's not there yet.
+     * @param term An RDF term.
+     * @return The term's ID.
+     * @throws NullPointerException The parameter {@code term} is null.
+     */
+    public int Add(RDFTerm term) {
+      if (term == null) {
+        throw new NullPointerException("term");
+      }
+      return this.Add(term.GetKind(), term.GetTypeOrLanguage(), term.GetValue());
+    }
+
+    /**
+     * Gets the ID of the specified term without adding it.
+     * @param term An RDF term.
+     * @return The term's ID, or -1 if it isn't in this table.
+     * @throws NullPointerException The parameter {@code term} is null.
+     */
+    public int IndexOf(RDFTerm term) {
+      if (term == null) {
+        throw new NullPointerException("term");
+      }
+      return this.Find(
+        term.GetKind(),
+        term.GetTypeOrLanguage(),
+        term.GetValue());
+    }
+
+    /**
+     * Makes an RDF term from the term with the specified ID.
+     * @param id The term's ID.
+     * @return An RDF term equal to the one added with that ID.
+     * @throws IllegalArgumentException The parameter {@code id} is less than 0
+     * or not less than GetCount().
+     */
+    public RDFTerm GetTerm(int id) {
+      this.CheckId(id);
+      String value = this.values[id];
+      switch (this.kinds[id]) {
+        case RDFTerm.BLANK:
+          return RDFTerm.FromBlankNode(value);
+        case RDFTerm.IRI:
+          return RDFTerm.FromIRI(value);
+        case RDFTerm.LANGSTRING:
+          return RDFTerm.FromLangString(value, this.typesOrLanguages[id]);
+        default:
+          return RDFTerm.FromTypedString(value, this.typesOrLanguages[id]);
+      }
+    }
+
+    /**
+     * Gets the kind of the term with the specified ID, as RDFTerm.GetKind
+     * would.
+     * @param id The term's ID.
+     * @return RDFTerm.BLANK, RDFTerm.IRI, RDFTerm.LANGSTRING or
+     * RDFTerm.TYPEDSTRING.
+     * @throws IllegalArgumentException The parameter {@code id} is less than 0
+     * or not less than GetCount().
+     */
+    public int GetKind(int id) {
+      this.CheckId(id);
+      return this.kinds[id];
+    }
+
+    /**
+     * Gets the IRI, blank node label or lexical form of the term with the
+     * specified ID, without making an RDF term.
+     * @param id The term's ID.
+     * @return A text string.
+     * @throws IllegalArgumentException The parameter {@code id} is less than 0
+     * or not less than GetCount().
+     */
+    public String GetValue(int id) {
+      this.CheckId(id);
+      return this.values[id];
+    }
+
+    /**
+     * Gets the datatype IRI or language tag of the term with the specified
+     * ID, without making an RDF term.
+     * @param id The term's ID.
+     * @return A text string, or null if the term isn't a literal.
+     * @throws IllegalArgumentException The parameter {@code id} is less than 0
+     * or not less than GetCount().
+     */
+    public String GetTypeOrLanguage(int id) {
+      this.CheckId(id);
+      return this.typesOrLanguages[id];
+    }
+
+    // Gets the ID of a term given by its parts, adding it if
+    // needed. The parts are assumed to be valid, as they are when
+    // read by a parser.
+    int Add(int kind, String typeOrLanguage, String value) {
+      return this.Add(kind, typeOrLanguage, value, false);
+    }
+
+    // Adds a blank node distinct from every blank node in this table,
+    // for a blank node read from a document, and returns its ID. The
+    // blank node gets the specified label if it's not null, valid
+    // under N-Triples and not in the table yet, or a generated label
+    // otherwise.
+    int NewBlankNode(String label) {
+      if (label != null && RDFInternal.IsValidNTriplesLabel(label)) {
+        int id = this.Add(RDFTerm.BLANK, null, label, true);
+        if (id >= 0) {
+          return id;
+        }
+      }
+      while (true) {
+        String newLabel = "b" + Integer.toString(this.nextBlankIndex);
+        ++this.nextBlankIndex;
+        int id = this.Add(RDFTerm.BLANK, null, newLabel, true);
+        if (id >= 0) {
+          return id;
+        }
+      }
+    }
+
+    // Gets the ID of a term given by its parts, adding it if needed;
+    // if 'mustBeNew' is true, returns -1 instead if it's already in
+    // this table
+    private int Add(
+      int kind,
+      String typeOrLanguage,
+      String value,
+      boolean mustBeNew) {
+      int hash = Hash(kind, typeOrLanguage, value);
+      int mask = this.slots.length - 1;
+      int i = hash & mask;
+      while (this.slots[i] != 0) {
+        int id = this.slots[i] - 1;
+        if (this.Matches(id, hash, kind, typeOrLanguage, value)) {
+          return mustBeNew ? -1 : id;
+        }
+        i = (i + 1) & mask;
+      }
+      int id = this.count;
+      if (id == this.kinds.length) {
+        this.Grow();
+        mask = this.slots.length - 1;
+        i = hash & mask;
+        while (this.slots[i] != 0) {
+          i = (i + 1) & mask;
+        }
+      }
+      this.kinds[id] = (byte)kind;
+      this.values[id] = value;
+      this.typesOrLanguages[id] = typeOrLanguage;
+      this.hashes[id] = hash;
+      this.slots[i] = id + 1;
+      ++this.count;
+      return id;
+    }
+
+    private int Find(int kind, String typeOrLanguage, String value) {
+      int hash = Hash(kind, typeOrLanguage, value);
+      int mask = this.slots.length - 1;
+      for (int i = hash & mask; this.slots[i] != 0; i = (i + 1) & mask) {
+        int id = this.slots[i] - 1;
+        if (this.Matches(id, hash, kind, typeOrLanguage, value)) {
+          return id;
+        }
+      }
+      return -1;
+    }
+
+    private boolean Matches(
+      int id,
+      int hash,
+      int kind,
+      String typeOrLanguage,
+      String value) {
+      if (this.hashes[id] != hash || this.kinds[id] != kind ||
+        !this.values[id].equals(value)) {
+        return false;
+      }
+      String other = this.typesOrLanguages[id];
+      return (other == null) ? typeOrLanguage == null :
+        other.equals(typeOrLanguage);
+    }
+
+    private static int Hash(int kind, String typeOrLanguage, String value) {
+      int hash = (31 * (31 + kind)) + ((typeOrLanguage == null) ? 0 :
+        typeOrLanguage.hashCode());
+      hash = (31 * hash) + value.hashCode();
+      // Mix all the bits into the low bits, which pick a slot; labels
+      // and IRIs that differ only in a trailing number otherwise
+      // have nearby hashes and form long runs of occupied slots
+      hash ^= hash >>> 16;
+      hash *= 0x85ebca6b;
+      hash ^= hash >>> 13;
+      hash *= 0xc2b2ae35;
+      return hash ^ (hash >>> 16);
+    }
+
+    private void Grow() {
+      int capacity = this.kinds.length * 2;
+      byte[] newKinds = new byte[capacity];
+      String[] newValues = new String[capacity];
+      String[] newTypes = new String[capacity];
+      int[] newHashes = new int[capacity];
+      System.arraycopy(this.kinds, 0, newKinds, 0, this.count);
+      System.arraycopy(this.values, 0, newValues, 0, this.count);
+      System.arraycopy(this.typesOrLanguages, 0, newTypes, 0, this.count);
+      System.arraycopy(this.hashes, 0, newHashes, 0, this.count);
+      this.kinds = newKinds;
+      this.values = newValues;
+      this.typesOrLanguages = newTypes;
+      this.hashes = newHashes;
+      int[] newSlots = new int[capacity * 2];
+      int mask = newSlots.length - 1;
+      for (int id = 0; id < this.count; ++id) {
+        int i = newHashes[id] & mask;
+        while (newSlots[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        newSlots[i] = id + 1;
+      }
+      this.slots = newSlots;
+    }
+
+    private void CheckId(int id) {
+      if (id < 0) {
+        throw new IllegalArgumentException("id(" + id + ") is less than 0");
+      }
+      if (id >= this.count) {
+        throw new IllegalArgumentException("id(" + id +
+          ") is not less than " + this.count);
+      }
+    }
+  }
@@ -0,0 +1,59 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A triple sink that collects triples in a reusable array and passes them to
+   * a batch sink each time the array is full.
+   */
+  final class TripleBatcher implements ITripleSink {
+    private final ITripleBatchSink sink;
+    private final RDFTriple[] batch;
+    private int count;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.TripleBatcher} class.
+     * @param sink The sink that receives the batches.
+     * @param batchSize The number of triples in each full batch.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     * @throws IllegalArgumentException The parameter {@code batchSize} is less
+     * than 1.
+     */
+    public TripleBatcher(ITripleBatchSink sink, int batchSize) {
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      if (batchSize < 1) {
+        throw new IllegalArgumentException("batchSize(" + batchSize +
+          ") is less than 1");
+      }
+      this.sink = sink;
+      this.batch = new RDFTriple[batchSize];
+    }
+
+    public void AddTriple(RDFTriple triple) {
+      this.batch[this.count++] = triple;
+      if (this.count == this.batch.length) {
+        this.count = 0;
+        this.sink.AddTriples(this.batch, this.batch.length);
+      }
+    }
+
+    /**
+     * Passes the triples collected so far, if any, to the batch sink.
+     */
+    public void Flush() {
+      if (this.count > 0) {
+        int oldCount = this.count;
+        this.count = 0;
+        this.sink.AddTriples(this.batch, oldCount);
+      }
+    }
+  }
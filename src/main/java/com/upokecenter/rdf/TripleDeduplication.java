@@ -0,0 +1,35 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * Specifies how a parser eliminates duplicate triples when it passes
+   * triples to a sink, an iterator or a stream.
+   */
+  public enum TripleDeduplication {
+    /**
+     * Every triple is passed on, including duplicates. This is the fastest
+     * choice and uses no memory for deduplication.
+     */
+    None,
+
+    /**
+     * Every duplicate triple is dropped. Memory use grows with the number of
+     * distinct triples.
+     */
+    Exact,
+
+    /**
+     * Duplicate triples are dropped when they're remembered, using a table of
+     * 64-bit fingerprints of fixed size. Some duplicates can pass when the
+     * table is full, and, with a negligible probability, a triple whose
+     * fingerprint matches that of a different triple is dropped.
+     */
+    Approximate,
+  }
@@ -7,7 +7,13 @@ licensed under the Unlicense: https://unlicense.org/
 
 */
 
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
 
 import com.upokecenter.util.*;
 import com.upokecenter.text.*;
@@ -15,7 +21,7 @@ import com.upokecenter.text.*;
   /**
    * Not documented yet.
    */
-  public class TurtleParser implements IRDFParser {
+  public class TurtleParser implements IRDFParser, Closeable {
     private static final class TurtleObject {
       public static final int SIMPLE = 0;
       public static final int COLLECTION = 1;
@@ -80,9 +86,98 @@ private TurtleObject propVarobj;
 
     private RDFTerm curPredicate;
 
-    private StackableCharacterInput input;
+    private IMarkableCharacterInput input;
     private int curBlankNode = 0;
 
+    // Assigns N-Triples blank node labels while parsing;
+    // null if blank nodes are relabelled after parsing instead
+    private BlankNodeLabeler labeler;
+
+    // Term standing for every term read while validating
+    private static final RDFTerm ValidationTerm = RDFTerm.FromBlankNode("v");
+
+    // Characters that end a run of plain characters in an IRI reference
+    private static final IntPredicate IriDelimiter = new CodePointTable(
+      ch -> ch <= 0x20 || ch == '>' || ch == '<' || ch == '\\' ||
+      ch == '\"' || ch == '{' || ch == '}' || ch == '|' || ch == '^' ||
+      ch == '`');
+
+    // Characters that end a run of plain characters in a string literal,
+    // for each kind of quote
+    private static final IntPredicate DoubleQuoteDelimiter =
+      new CodePointTable(ch -> ch == '\"' || ch == '\\' || ch == 0x0a ||
+        ch == 0x0d);
+
+    private static final IntPredicate SingleQuoteDelimiter =
+      new CodePointTable(ch -> ch == '\'' || ch == '\\' || ch == 0x0a ||
+        ch == 0x0d);
+
+    // Characters that end a run of name characters in a blank node label
+    private static final IntPredicate BlankNodeLabelDelimiter =
+      new CodePointTable(ch -> ch == '.' || !IsNameChar(ch));
+
+    private static final IntPredicate NonWhitespace = new CodePointTable(
+      ch -> ch != 0x09 && ch != 0x0a && ch != 0x0d && ch != 0x20);
+
+    private static final IntPredicate LineEnd = new CodePointTable(
+      ch -> ch == 0x0a || ch == 0x0d);
+
+    // True while Validate is running; terms and triples aren't
+    // created then, and triples are only counted
+    private boolean validating;
+    private long validatedTriples;
+
+    // Table and sink of the triples read as IDs; set while
+    // Parse(TermTable, ITripleIdSink) is running, when blank nodes
+    // are added to the table as they're read
+    private TermTable idTable;
+    private ITripleIdSink idSink;
+
+    // Last subject and predicate looked up in idTable, with their IDs;
+    // the same term objects are usually passed for several triples
+    // in a row
+    private RDFTerm idSubject;
+    private int idSubjectId;
+    private RDFTerm idPredicate;
+    private int idPredicateId;
+
+    // Builder that token readers collect characters in; kept
+    // between tokens and documents to save allocating one per token
+    private StringBuilder scratch = new StringBuilder();
+
+    // Capacity above which the scratch builder isn't kept by Reset
+    private static final int MaxScratchCapacity = 1 << 16;
+
+    private TripleDeduplication deduplication = TripleDeduplication.None;
+    private int approximateSlots = DuplicateFilter.DefaultApproximateSlots;
+    private ParseLimiter limiter;
+    private ByteCountingInput counter;
+
+    // Dictionary that terms are interned in, or null
+    private TermDictionary terms;
+
+    private int maxBufferedChars =
+      StackableCharacterInput.DefaultMaxBufferSize;
+
+    // Input decoded on another thread, or null
+    private BackgroundCharacterInput background;
+
+    private static void CheckBaseURI(String baseURI) {
+      if (baseURI == null) {
+        throw new NullPointerException("baseURI");
+      }
+      if (!URIUtility.HasScheme(baseURI)) {
+        throw new IllegalArgumentException("baseURI has no scheme");
+      }
+    }
+
+    private static String PathToString(Path path) {
+      if (path == null) {
+        throw new NullPointerException("path");
+      }
+      return path.toUri().toString();
+    }
+
     private static String UriToString(java.net.URI baseURI) {
       if (baseURI == null) {
         throw new NullPointerException("baseURI");
@@ -138,13 +233,103 @@ private TurtleObject propVarobj;
       if (!URIUtility.HasScheme(baseURI)) {
         throw new IllegalArgumentException("baseURI has no scheme.");
       }
-      this.input = new StackableCharacterInput(
-        Encodings.GetDecoderInput(Encodings.UTF8, stream));
+      // Decodes UTF-8 straight from blocks of bytes; all of Turtle's
+      // delimiters are ASCII, so most characters take one comparison
+      Utf8CharacterInput utf8 = new Utf8CharacterInput(stream);
+      this.input = utf8;
+      this.limiter = new ParseLimiter(utf8);
       this.baseURI = baseURI;
       this.bnodeLabels = new HashMap<String, RDFTerm>();
       this.namespaces = new HashMap<String, String>();
     }
 
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.TurtleParser}
+     * class that reads a file through memory mapping, with the file's URI as
+     * the base URI.
+     * @param path The file to read.
+     * @throws NullPointerException The parameter {@code path} is null.
+     * @throws IOException An I/O error occurred while opening or mapping the
+     * file.
+     */
+    public TurtleParser(Path path) throws IOException {
+ this(path, PathToString(path));
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.TurtleParser}
+     * class that reads a file through memory mapping, so that the data is
+     * copied in large blocks straight from the operating system's page cache.
+     * Files bigger than 2 GiB are mapped in several segments.
+     * @param path The file to read.
+     * @param baseURI The parameter {@code baseURI} is a text string.
+     * @throws NullPointerException The parameter {@code path} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     * @throws IOException An I/O error occurred while opening or mapping the
+     * file.
+     */
+    public TurtleParser(Path path, String baseURI) throws IOException {
+ this(new ByteBufferReader(ByteBufferReader.MapFile(path)), baseURI);
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.TurtleParser}
+     * class that reads the remaining bytes of a buffer, which can be a heap
+     * or direct buffer. The buffer's position isn't changed.
+     * @param buffer A buffer holding Turtle data in UTF-8.
+     * @throws NullPointerException The parameter {@code buffer} is null.
+     */
+    public TurtleParser(ByteBuffer buffer) {
+ this(buffer, "about:blank");
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.TurtleParser}
+     * class that reads the remaining bytes of a buffer, which can be a heap
+     * or direct buffer. The buffer's position isn't changed.
+     * @param buffer A buffer holding Turtle data in UTF-8.
+     * @param baseURI The parameter {@code baseURI} is a text string.
+     * @throws NullPointerException The parameter {@code buffer} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     */
+    public TurtleParser(ByteBuffer buffer, String baseURI) {
+ this(new ByteBufferReader(RDFInternal.Duplicate(buffer)), baseURI);
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.TurtleParser}
+     * class that reads from a channel, in large blocks through a direct
+     * buffer that is reused for each block.
+     * @param channel A channel in blocking mode. It isn't closed by the parser.
+     * I/O errors while parsing are thrown as UncheckedIOException, as is a
+     * channel that keeps returning no bytes.
+     * @throws NullPointerException The parameter {@code channel} is null.
+     * @throws IllegalArgumentException The parameter {@code channel} is a
+     * selectable channel in non-blocking mode.
+     */
+    public TurtleParser(ReadableByteChannel channel) {
+ this(channel, "about:blank");
+    }
+
+    /**
+     * Initializes a new instance of the {@link com.upokecenter.rdf.TurtleParser}
+     * class that reads from a channel, in large blocks through a direct
+     * buffer that is reused for each block.
+     * @param channel A channel in blocking mode. It isn't closed by the parser.
+     * I/O errors while parsing are thrown as UncheckedIOException, as is a
+     * channel that keeps returning no bytes.
+     * @param baseURI The parameter {@code baseURI} is a text string.
+     * @throws NullPointerException The parameter {@code channel} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme, or the parameter
+     * {@code channel} is a selectable channel in non-blocking mode.
+     */
+    public TurtleParser(ReadableByteChannel channel, String baseURI) {
+ this(new ChannelReader(channel), baseURI);
+    }
+
     /**
      * Initializes a new instance of the {@link com.upokecenter.rdf.TurtleParser}
      * class.
@@ -173,39 +358,530 @@ private TurtleObject propVarobj;
       if (!URIUtility.HasScheme(baseURI)) {
         throw new IllegalArgumentException("baseURI has no scheme");
       }
-      this.input = new StackableCharacterInput(
-        Encodings.StringToInput(str));
+      // The string is indexed directly rather than copied into
+      // a buffer of code points
+      StringCharacterInput chars = new StringCharacterInput(str);
+      this.input = chars;
+      this.limiter = new ParseLimiter(chars);
       this.baseURI = baseURI;
       this.bnodeLabels = new HashMap<String, RDFTerm>();
       this.namespaces = new HashMap<String, String>();
     }
 
+    // Initializes a parser that reads from the specified
+    // input, for use by other classes in this package
+    TurtleParser(IMarkableCharacterInput input, String baseURI) {
+      if (input == null) {
+        throw new NullPointerException("input");
+      }
+      if (baseURI == null) {
+        throw new NullPointerException("baseURI");
+      }
+      if (!URIUtility.HasScheme(baseURI)) {
+        throw new IllegalArgumentException("baseURI has no scheme");
+      }
+      this.input = input;
+      this.limiter = new ParseLimiter(null);
+      this.baseURI = baseURI;
+      this.bnodeLabels = new HashMap<String, RDFTerm>();
+      this.namespaces = new HashMap<String, String>();
+    }
+
+    /**
+     * Creates a Turtle parser that reads a gzip-compressed document, such as a
+     * ".ttl.gz" file. The document is decompressed and decoded from UTF-8 on
+     * a separate thread, which hands large blocks of characters to the parser
+     * through a small bounded buffer, so that on a machine with more than
+     * one processor, decompression and parsing take place at the same time.
+     * The stream is closed by that thread once it's read to the end, or once
+     * the parser is closed, as described in close(). The byte limit, if
+     * set, applies to the decompressed bytes, and tokens are limited in
+     * length as setMaxBufferedChars describes.
+     * @param stream A stream of gzip-compressed data.
+     * @param baseURI The base URI of the document.
+     * @return A Turtle parser.
+     * @throws NullPointerException The parameter {@code stream} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     */
+    public static TurtleParser FromGzip(InputStream stream, String baseURI) {
+      return FromCompressed(stream, baseURI, true);
+    }
+
+    /**
+     * Creates a Turtle parser that reads a document compressed in the zlib
+     * format (deflate data with a zlib header). The document is decompressed
+     * and decoded on a separate thread, as with FromGzip.
+     * @param stream A stream of zlib-compressed data.
+     * @param baseURI The base URI of the document.
+     * @return A Turtle parser.
+     * @throws NullPointerException The parameter {@code stream} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     */
+    public static TurtleParser FromDeflate(InputStream stream, String baseURI) {
+      return FromCompressed(stream, baseURI, false);
+    }
+
+    private static TurtleParser FromCompressed(
+      InputStream stream,
+      String baseURI,
+      boolean gzip) {
+      if (stream == null) {
+        throw new NullPointerException("stream");
+      }
+      // Check the base URI before the decoding thread is started
+      CheckBaseURI(baseURI);
+      BackgroundCharacterInput background = new BackgroundCharacterInput(
+        stream,
+        gzip,
+        false);
+      ByteCountingInput counter = new ByteCountingInput(background);
+      TurtleParser parser = new TurtleParser(
+        new StackableCharacterInput(counter),
+        baseURI);
+      parser.background = background;
+      parser.counter = counter;
+      parser.limiter.Reset(counter);
+      return parser;
+    }
+
+    /**
+     * Prepares this parser to read another document from the specified string,
+     * as though it had just been created with that string. The parser's
+     * buffers and maps are kept and cleared, so that one parser can read
+     * many small documents without allocating much for each; a parser can be
+     * kept per thread for that purpose. Settings such as the deduplication
+     * mode and the limits are kept as well.
+     * @param str The parameter {@code str} is a text string.
+     * @param baseURI The base URI of the document.
+     * @throws NullPointerException The parameter {@code str} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     */
+    public void Reset(String str, String baseURI) {
+      if (str == null) {
+        throw new NullPointerException("str");
+      }
+      CheckBaseURI(baseURI);
+      StringCharacterInput chars;
+      if (this.input instanceof StringCharacterInput) {
+        chars = (StringCharacterInput)this.input;
+        chars.Reset(str);
+      } else {
+        chars = new StringCharacterInput(str);
+        this.input = chars;
+      }
+      this.counter = null;
+      this.limiter.Reset(chars);
+      this.ResetState(baseURI);
+    }
+
+    /**
+     * Prepares this parser to read another document from the specified byte
+     * reader, as though it had just been created with that reader. As with
+     * the other overloads, the parser's buffers and maps are reused and its
+     * settings are kept.
+     * @param stream A byte reader for a document encoded in UTF-8.
+     * @param baseURI The base URI of the document.
+     * @throws NullPointerException The parameter {@code stream} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     */
+    public void Reset(IByteReader stream, String baseURI) {
+      if (stream == null) {
+        throw new NullPointerException("stream");
+      }
+      CheckBaseURI(baseURI);
+      Utf8CharacterInput utf8;
+      if (this.input instanceof Utf8CharacterInput) {
+        utf8 = (Utf8CharacterInput)this.input;
+        utf8.Reset(stream);
+      } else {
+        utf8 = new Utf8CharacterInput(stream);
+        this.input = utf8;
+      }
+      this.counter = null;
+      this.limiter.Reset(utf8);
+      this.ResetState(baseURI);
+    }
+
+    /**
+     * Prepares this parser to read another document from the remaining bytes
+     * of the specified buffer, as though it had just been created with that
+     * buffer. As with the other overloads, the parser's buffers and maps are
+     * reused and its settings are kept.
+     * @param buffer A buffer holding a document encoded in UTF-8. Its position
+     * and limit aren't changed.
+     * @param baseURI The base URI of the document.
+     * @throws NullPointerException The parameter {@code buffer} or {@code
+     * baseURI} is null.
+     * @throws IllegalArgumentException BaseURI has no scheme.
+     */
+    public void Reset(ByteBuffer buffer, String baseURI) {
+      this.Reset(
+        new ByteBufferReader(RDFInternal.Duplicate(buffer)),
+        baseURI);
+    }
+
+    private void ResetState(String baseURI) {
+      this.close();
+      this.baseURI = baseURI;
+      this.bnodeLabels.clear();
+      this.namespaces.clear();
+      this.curBlankNode = 0;
+      this.curSubject = null;
+      this.curPredicate = null;
+      this.validating = false;
+      this.validatedTriples = 0;
+      if (this.labeler != null) {
+        this.labeler.Clear();
+      }
+      if (this.scratch.capacity() > MaxScratchCapacity) {
+        this.scratch = new StringBuilder();
+      }
+    }
+
+    // Returns the builder that token readers collect characters
+    // in, emptied
+    private StringBuilder Scratch() {
+      this.scratch.setLength(0);
+      return this.scratch;
+    }
+
+    // Returns the builder that a token reader collects the token's
+    // text in, or null while validating, when the text isn't kept
+    // and the reader only checks the token's syntax
+    private StringBuilder TokenBuilder() {
+      return this.validating ? null : this.Scratch();
+    }
+
+    private static void AppendCodePoint(StringBuilder builder, int ch) {
+      if (builder == null) {
+        return;
+      }
+      if (ch <= 0xffff) {
+        builder.append((char)ch);
+      } else if (ch <= 0x10ffff) {
+        builder.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
+        builder.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
+      }
+    }
+
+    // Returns a token's text, or the empty string while validating
+    private static String TokenText(StringBuilder builder) {
+      return (builder == null) ? "" : builder.toString();
+    }
+
+    /**
+     * Gets a value indicating whether blank nodes receive labels valid under
+     * N-Triples as soon as the parser first reads them.
+     * @return Either {@code true} or {@code false}. The default is {@code false}.
+     */
+    public final boolean getRelabelBlankNodesWhileParsing() {
+      return this.labeler != null;
+    }
+
+    /**
+     * Sets a value indicating whether blank nodes receive labels valid under
+     * N-Triples as soon as the parser first reads them. If {@code true},
+     * every triple is final when it's produced, so the overload of Parse
+     * that returns a set doesn't need a second pass over the set to relabel
+     * blank nodes, and the streaming methods (the overload of Parse that
+     * takes a sink, ParseIterator and ParseStream) produce the same labels
+     * that set would contain. If {@code false}, blank nodes are relabelled
+     * only by the overload of Parse that returns a set, after the whole
+     * input is read. Either way, a label from the document is kept if it's
+     * valid under N-Triples and doesn't clash with a generated label, but
+     * the generated labels can differ between the two modes. Should be set
+     * before parsing begins.
+     * @param value Either {@code true} or {@code false}.
+     */
+    public final void setRelabelBlankNodesWhileParsing(boolean value) {
+      if (value != (this.labeler != null)) {
+        this.labeler = value ? new BlankNodeLabeler() : null;
+      }
+    }
+
+    /**
+     * Gets the strategy used to eliminate duplicate triples when this parser
+     * passes triples to a sink, an iterator or a stream.
+     * @return The deduplication strategy. The default is
+     * TripleDeduplication.None.
+     */
+    public final TripleDeduplication getDeduplication() {
+      return this.deduplication;
+    }
+
+    /**
+     * Sets the strategy used to eliminate duplicate triples when this parser
+     * passes triples to a sink, an iterator or a stream. Should be set before
+     * parsing begins.
+     * @param value The deduplication strategy.
+     * @throws NullPointerException The parameter {@code value} is null.
+     */
+    public final void setDeduplication(TripleDeduplication value) {
+      if (value == null) {
+        throw new NullPointerException("value");
+      }
+      this.deduplication = value;
+    }
+
+    /**
+     * Gets the number of 64-bit fingerprints remembered by the
+     * TripleDeduplication.Approximate strategy.
+     * @return The number of fingerprints. The default is 1048576 (8 MiB).
+     */
+    public final int getApproximateDeduplicationSlots() {
+      return this.approximateSlots;
+    }
+
+    /**
+     * Sets the number of 64-bit fingerprints remembered by the
+     * TripleDeduplication.Approximate strategy. The number is rounded up to a
+     * power of two.
+     * @param value The number of fingerprints.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 1.
+     */
+    public final void setApproximateDeduplicationSlots(int value) {
+      if (value < 1) {
+        throw new IllegalArgumentException("value(" + value +
+          ") is less than 1");
+      }
+      this.approximateSlots = value;
+    }
+
+    /**
+     * Gets the dictionary this parser interns IRIs, datatype IRIs and
+     * language tags in.
+     * @return The term dictionary, or null if there is none (the default).
+     */
+    public final TermDictionary getTermDictionary() {
+      return this.terms;
+    }
+
+    /**
+     * Sets a dictionary this parser interns IRIs, datatype IRIs and language
+     * tags in, so that each IRI that repeats is read as the same RDFTerm
+     * object while the dictionary holds it. This saves memory when many
+     * triples read by this parser are kept. The dictionary can be shared
+     * with other parsers, including ones used at the same time from
+     * different threads. Should be set before parsing begins.
+     * @param value The term dictionary, or null to have none.
+     */
+    public final void setTermDictionary(TermDictionary value) {
+      this.terms = value;
+    }
+
+    private ITripleSink FilterSink(ITripleSink sink) {
+      return DuplicateFilter.Wrap(
+          this.limiter.Wrap(sink),
+          this.deduplication,
+          this.approximateSlots);
+    }
+
+    /**
+     * Gets the maximum number of triples this parser passes on before it stops
+     * reading.
+     * @return The maximum number of triples. The default is Long.MAX_VALUE.
+     */
+    public final long getMaxTriples() {
+      return this.limiter.GetMaxTriples();
+    }
+
+    /**
+     * Sets the maximum number of triples this parser passes on before it stops
+     * reading, which is useful for previews of large documents. Once the
+     * maximum is reached, the rest of the current statement is skipped and
+     * parsing ends as though the input ended there; the overload of Parse
+     * that returns a set still relabels blank nodes as usual. Should be set
+     * before parsing begins.
+     * @param value The maximum number of triples.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 0.
+     */
+    public final void setMaxTriples(long value) {
+      this.limiter.SetMaxTriples(value);
+    }
+
+    /**
+     * Gets the number of bytes of input after which this parser stops reading.
+     * @return The maximum number of bytes. The default is Long.MAX_VALUE.
+     */
+    public final long getMaxBytes() {
+      return this.limiter.GetMaxBytes();
+    }
+
+    /**
+     * Sets the number of bytes of input after which this parser stops reading.
+     * The limit is checked between statements, so the statement that crosses
+     * it is read in full; parsing then ends as though the input ended there.
+     * For a parser created from a string, the string's length in UTF-8 is
+     * counted. Should be set before parsing begins.
+     * @param value The maximum number of bytes.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 0.
+     */
+    public final void setMaxBytes(long value) {
+      this.limiter.SetMaxBytes(value);
+    }
+
+    /**
+     * Gets the maximum number of characters this parser holds in memory for
+     * the token or statement being read.
+     * @return The maximum number of characters. The default is
+     * StackableCharacterInput.DefaultMaxBufferSize, 2^26.
+     */
+    public final int getMaxBufferedChars() {
+      return this.maxBufferedChars;
+    }
+
+    /**
+     * Sets the maximum number of characters this parser holds in memory for
+     * the token or statement being read, so that a token of unlimited length
+     * can't use unlimited memory; a longer token throws ParserException.
+     * This applies only to parsers created with FromGzip or FromDeflate,
+     * which read through a character buffer; other parsers read their input
+     * in place or in blocks of bytes. Should be set before parsing begins.
+     * @param value The maximum number of characters.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 1.
+     */
+    public final void setMaxBufferedChars(int value) {
+      if (value < 1) {
+        throw new IllegalArgumentException("value(" + value +
+          ") is less than 1");
+      }
+      this.maxBufferedChars = value;
+      if (this.input instanceof StackableCharacterInput) {
+        ((StackableCharacterInput)this.input).SetMaxBufferSize(value);
+      }
+    }
+
+    /**
+     * Gets the cancellation check of this parser.
+     * @return The cancellation check, or null if there is none (the default).
+     */
+    public final BooleanSupplier getCancellation() {
+      return this.limiter.GetCancellation();
+    }
+
+    /**
+     * Sets a cancellation check, which the parser calls between statements;
+     * if it returns {@code true}, parsing ends as though the input ended
+     * there. The check can, for example, read a flag set by another thread.
+     * @param value The cancellation check, or null to have none.
+     */
+    public final void setCancellation(BooleanSupplier value) {
+      this.limiter.SetCancellation(value);
+    }
+
+    /**
+     * Gets a value indicating whether parsing ended before the end of the
+     * input because of setMaxTriples, setMaxBytes or setCancellation.
+     * @return Either {@code true} or {@code false}.
+     */
+    public final boolean getStoppedEarly() {
+      return this.limiter.IsStopped();
+    }
+
     private RDFTerm AllocateBlankNode() {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      if (this.idTable != null) {
+        // Reading into IDs, the blank node is added to the table at once
+        return this.idTable.GetTerm(this.idTable.NewBlankNode(null));
+      }
+      if (this.labeler != null) {
+        return RDFTerm.FromBlankNode(this.labeler.NewLabel());
+      }
       ++this.curBlankNode;
       // A period is included so as not to conflict
       // with user-defined blank node labels (this is allowed
       // because the syntax for blank node identifiers is
       // not concretely defined)
       String label = "." + Integer.toString((int)this.curBlankNode);
-      RDFTerm node = RDFTerm.FromBlankNode(label);
-      this.bnodeLabels.put(label, node);
-      return node;
+      // NOTE: The label isn't stored in bnodeLabels, since it can't
+      // conflict with a label that appears in the document
+      return RDFTerm.FromBlankNode(label);
     }
 
-    private static void EmitRDFTriple(
+    private void EmitRDFTriple(
       RDFTerm subj,
       RDFTerm pred,
       RDFTerm obj,
-      Set<RDFTriple> triples) {
+      ITripleSink triples) {
+      if (this.validating) {
+        ++this.validatedTriples;
+        return;
+      }
+      if (this.idSink != null) {
+        if (subj != this.idSubject) {
+          this.idSubjectId = this.idTable.Add(subj);
+          this.idSubject = subj;
+        }
+        if (pred != this.idPredicate) {
+          this.idPredicateId = this.idTable.Add(pred);
+          this.idPredicate = pred;
+        }
+        this.idSink.AddTriple(
+          this.idSubjectId,
+          this.idPredicateId,
+          this.idTable.Add(obj));
+        return;
+      }
       RDFTriple triple = new RDFTriple(subj, pred, obj);
-      triples.add(triple);
+      triples.AddTriple(triple);
+    }
+
+    private RDFTerm NewIri(String iri) {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      return (this.terms == null) ? RDFTerm.FromIRI(iri) :
+        this.terms.GetIri(iri);
+    }
+
+    private RDFTerm NewIri(String scope, String localName) {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      // Without a dictionary, the term refers to the namespace
+      // string rather than a copy of it
+      return (this.terms == null) ? RDFTerm.FromIRI(scope, localName) :
+        this.terms.GetIri(scope + localName);
+    }
+
+    private RDFTerm NewLangString(String str, String languageTag) {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      return RDFTerm.FromLangString(
+          str,
+          (this.terms == null) ? languageTag :
+          this.terms.GetLanguageTag(languageTag));
+    }
+
+    private RDFTerm NewTypedString(String str) {
+      return this.validating ? ValidationTerm : RDFTerm.FromTypedString(str);
+    }
+
+    private RDFTerm NewTypedString(String str, String iri) {
+      if (this.validating) {
+        return ValidationTerm;
+      }
+      return RDFTerm.FromTypedString(
+          str,
+          (this.terms == null) ? iri : this.terms.GetDatatype(iri));
     }
 
     private void EmitRDFTriple(
       RDFTerm subj,
       RDFTerm pred,
       TurtleObject obj,
-      Set<RDFTriple> triples) {
+      ITripleSink triples) {
       if (obj.getKind() == TurtleObject.SIMPLE) {
         EmitRDFTriple(subj, pred, obj.getTerm(), triples);
       } else if (obj.getKind() == TurtleObject.PROPERTIES) {
@@ -247,7 +923,7 @@ private TurtleObject propVarobj;
       TurtleObject subj,
       RDFTerm pred,
       TurtleObject obj,
-      Set<RDFTriple> triples) {
+      ITripleSink triples) {
       if (subj.getKind() == TurtleObject.SIMPLE) {
         this.EmitRDFTriple(subj.getTerm(), pred, obj, triples);
       } else if (subj.getKind() == TurtleObject.PROPERTIES) {
@@ -288,17 +964,17 @@ private TurtleObject propVarobj;
       int mark = this.input.SetHardMark();
       int ch = this.input.ReadChar();
       if (ch == '@') {
-        return RDFTerm.FromLangString(str, this.ReadLanguageTag());
+        return this.NewLangString(str, this.ReadLanguageTag());
       } else if (ch == '^' && this.input.ReadChar() == '^') {
         ch = this.input.ReadChar();
         if (ch == '<') {
-          return RDFTerm.FromTypedString(str, this.ReadIriReference());
+          return this.NewTypedString(str, this.ReadIriReference());
         } else if (ch == ':') { // prefixed name with current prefix
           String scope = this.namespaces.get("");
           if (scope == null) {
             throw new ParserException();
           }
-          return RDFTerm.FromTypedString(
+          return this.NewTypedString(
               str,
               scope + this.ReadOptionalLocalName());
         } else if (IsNameStartChar(ch)) { // prefix
@@ -307,7 +983,7 @@ private TurtleObject propVarobj;
           if (scope == null) {
             throw new ParserException();
           }
-          return RDFTerm.FromTypedString(
+          return this.NewTypedString(
               str,
               scope + this.ReadOptionalLocalName());
         } else {
@@ -315,7 +991,7 @@ private TurtleObject propVarobj;
         }
       } else {
         this.input.SetMarkPosition(mark);
-        return RDFTerm.FromTypedString(str);
+        return this.NewTypedString(str);
       }
     }
 
@@ -357,59 +1033,328 @@ private TurtleObject propVarobj;
      */
     public Set<RDFTriple> Parse() {
       Set<RDFTriple> triples = new HashSet<RDFTriple>();
-      while (true) {
-        this.SkipWhitespace();
-        int mark = this.input.SetHardMark();
-        int ch = this.input.ReadChar();
-        if (ch < 0) {
-          RDFInternal.ReplaceBlankNodes(triples, this.bnodeLabels);
-          return triples;
+      this.Parse(RDFInternal.ToSink(triples));
+      // Blank nodes without a label in the document aren't stored in
+      // bnodeLabels, so curBlankNode is also checked
+      if (this.labeler == null &&
+        (this.bnodeLabels.size() > 0 || this.curBlankNode > 0)) {
+        RDFInternal.ReplaceBlankNodes(triples, this.bnodeLabels);
+      }
+      return triples;
+    }
+
+    /**
+     * Parses the input and adds each RDF triple read to the specified
+     * collection, so that the caller chooses its type and initial capacity.
+     * Duplicate triples are eliminated only as far as the collection itself
+     * and setDeduplication do so. Because relabelling blank nodes after
+     * parsing would mean removing triples from the collection, this method
+     * labels blank nodes as they're read, as though
+     * setRelabelBlankNodesWhileParsing were {@code true}; that setting is
+     * left as it was.
+     * @param triples A collection that receives the triples read.
+     * @throws NullPointerException The parameter {@code triples} is null.
+     */
+    public void Parse(Collection<RDFTriple> triples) {
+      if (triples == null) {
+        throw new NullPointerException("triples");
+      }
+      boolean relabel = this.getRelabelBlankNodesWhileParsing();
+      this.setRelabelBlankNodesWhileParsing(true);
+      try {
+        this.Parse(RDFInternal.ToSink(triples));
+      } finally {
+        this.setRelabelBlankNodesWhileParsing(relabel);
+      }
+    }
+
+    /**
+     * Parses the input and passes each RDF triple to the specified sink as soon
+     * as it is read. Only the triples of the statement currently being read
+     * are held in memory. Unlike the other overload, this method eliminates
+     * duplicate triples only as setDeduplication specifies, and, unless
+     * setRelabelBlankNodesWhileParsing was set to {@code true}, blank nodes
+     * keep the labels given in the document or allocated by the parser,
+     * which need not be valid N-Triples blank node labels.
+     * @param sink The object that receives the triples read.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     */
+    public void Parse(ITripleSink sink) {
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      ITripleSink filtered = this.FilterSink(sink);
+      while (this.NextStatement(filtered)) {
+        // Keep reading statements until the end of the input
+      }
+    }
+
+    /**
+     * Parses the input and passes the RDF triples read to the specified sink in
+     * batches, each held in an array that is reused from batch to batch. As
+     * with the overload that takes a triple sink, duplicate triples are
+     * eliminated only as setDeduplication specifies.
+     * @param sink The object that receives the batches of triples read.
+     * @param batchSize The number of triples in each batch except the last.
+     * @throws NullPointerException The parameter {@code sink} is null.
+     * @throws IllegalArgumentException The parameter {@code batchSize} is less
+     * than 1.
+     */
+    public void Parse(ITripleBatchSink sink, int batchSize) {
+      TripleBatcher batcher = new TripleBatcher(sink, batchSize);
+      this.Parse(batcher);
+      batcher.Flush();
+    }
+
+    /**
+     * Parses the input and passes each RDF triple to the specified sink as the
+     * IDs its terms have in the specified term table, adding terms to the
+     * table as they're first read. Unless a deduplication strategy other
+     * than TripleDeduplication.None or a maximum number of triples is set,
+     * no RDFTriple objects are made, and a subject or predicate repeated
+     * over several triples is looked up in the table once. The blank nodes
+     * read get IDs distinct from those of blank nodes already in the table,
+     * as described in TermTable, whatever setRelabelBlankNodesWhileParsing
+     * is. As with the overload that takes a triple sink, duplicate triples
+     * are eliminated only as setDeduplication specifies.
+     * @param table The table that numbers the terms read.
+     * @param sink The object that receives the triples read.
+     * @throws NullPointerException The parameter {@code table} or {@code
+     * sink} is null.
+     */
+    public void Parse(TermTable table, ITripleIdSink sink) {
+      if (table == null) {
+        throw new NullPointerException("table");
+      }
+      if (sink == null) {
+        throw new NullPointerException("sink");
+      }
+      if (this.deduplication != TripleDeduplication.None ||
+        this.limiter.GetMaxTriples() != Long.MAX_VALUE) {
+        // Deduplication and the triple limit work on triples
+        IRDFParser.super.Parse(table, sink);
+        return;
+      }
+      this.idTable = table;
+      this.idSink = sink;
+      try {
+        while (this.NextStatement(null)) {
+          // Keep reading statements until the end of the input
         }
-        if (ch == '@') {
-          ch = this.input.ReadChar();
-          if (ch == 'p' && this.input.ReadChar() == 'r' &&
-            this.input.ReadChar() == 'e' &&
-            this.input.ReadChar() == 'f' && this.input.ReadChar() == 'i' &&
-            this.input.ReadChar() == 'x' && this.SkipWhitespace()) {
-            this.ReadPrefixStatement(false);
-            continue;
-          } else if (ch == 'b' && this.input.ReadChar() == 'a' &&
-            this.input.ReadChar() == 's' &&
-            this.input.ReadChar() == 'e' && this.SkipWhitespace()) {
-            this.ReadBase(false);
-            continue;
-          } else {
-            throw new ParserException();
-          }
-        } else if (ch == 'b' || ch == 'B') {
-          int c2 = 0;
-          if (((c2 = this.input.ReadChar()) == 'A' || c2 == 'a') &&
-            ((c2 = this.input.ReadChar()) == 'S' || c2 == 's') &&
-            ((c2 = this.input.ReadChar()) == 'E' || c2 == 'e') &&
-            this.SkipWhitespace()) {
-            this.ReadBase(true);
-            continue;
-          } else {
-            this.input.SetMarkPosition(mark);
-          }
-        } else if (ch == 'p' || ch == 'P') {
-          int c2 = 0;
-          if (((c2 = this.input.ReadChar()) == 'R' || c2 == 'r') &&
-            ((c2 = this.input.ReadChar()) == 'E' || c2 == 'e') &&
-            ((c2 = this.input.ReadChar()) == 'F' || c2 == 'f') &&
-            ((c2 = this.input.ReadChar()) == 'I' || c2 == 'i') &&
-            ((c2 = this.input.ReadChar()) == 'X' || c2 == 'x') &&
-            this.SkipWhitespace()) {
-            this.ReadPrefixStatement(true);
-            continue;
-          } else {
-            this.input.SetMarkPosition(mark);
+      } finally {
+        this.idTable = null;
+        this.idSink = null;
+        this.idSubject = null;
+        this.idPredicate = null;
+      }
+    }
+
+    /**
+     * Checks the syntax of the input without creating RDF terms or triples or
+     * resolving IRIs, and counts the statements and triples read. Checking
+     * stops at the first syntax error. Limits set with setMaxBytes and
+     * setCancellation apply, but setMaxTriples and setDeduplication are
+     * ignored. This method is meant to be called at most once and instead of
+     * the parsing methods.
+     * @return The result of the check.
+     */
+    public ValidationResult Validate() {
+      long statements = 0;
+      long triples = 0;
+      this.validating = true;
+      try {
+        while (this.NextStatement(null)) {
+          ++statements;
+          triples = this.validatedTriples;
+        }
+      } catch (ParserException ex) {
+        return new ValidationResult(
+          statements,
+          triples,
+          RDFInternal.GetPosition(this.counter, this.input),
+          ex);
+      } finally {
+        this.validating = false;
+      }
+      return new ValidationResult(statements, triples, -1, null);
+    }
+
+    /**
+     * Gets an iterator that parses the input lazily, reading one statement each
+     * time it runs out of triples, so that only the triples of the current
+     * statement are held in memory. As with the overload of Parse that takes
+     * a sink, duplicate triples are eliminated only as setDeduplication
+     * specifies and blank node labels are rewritten only as
+     * setRelabelBlankNodesWhileParsing specifies. The
+     * iterator's methods throw ParserException if a syntax error is found.
+     * @return An iterator over the triples in the input.
+     */
+    public Iterator<RDFTriple> ParseIterator() {
+      return new StatementIterator() {
+        private ITripleSink filtered;
+
+        @Override protected boolean ReadStatement(ITripleSink sink) {
+          if (this.filtered == null) {
+            this.filtered = TurtleParser.this.FilterSink(sink);
           }
+          return TurtleParser.this.NextStatement(this.filtered);
+        }
+      };
+    }
+
+    /**
+     * Gets a stream of the triples in the input, parsed lazily as with
+     * ParseIterator. Closing the stream closes this parser.
+     * @return A stream of the triples in the input.
+     */
+    public Stream<RDFTriple> ParseStream() {
+      return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+          this.ParseIterator(),
+          Spliterator.ORDERED | Spliterator.NONNULL),
+        false).onClose(this::close);
+    }
+
+    /**
+     * Stops reading the input. For a parser created with FromGzip or
+     * FromDeflate, this stops the thread that decompresses and decodes the
+     * input, which then closes the compressed stream; this happens on its
+     * own when the parser reaches the end of the input, or when a parsing
+     * method ends early because of a syntax error or a limit, but not when
+     * an iterator or stream from ParseIterator or ParseStream is left
+     * unfinished, so such a parser should be closed once it's no longer
+     * needed. Streams, channels and files given to the constructors aren't
+     * closed. Parsing after this method is called ends as though the input
+     * ended there.
+     */
+    public void close() {
+      if (this.background != null) {
+        this.background.close();
+        this.background = null;
+      }
+    }
+
+    // Return values of ParseBufferedStatement
+    static final int BufferedEnd = 0;
+    static final int BufferedStatement = 1;
+    static final int BufferedIncomplete = 2;
+
+    // Reads a directive or a triples statement from an input that
+    // may not hold all of the data yet. Adds any triples read to the
+    // specified list. Returns BufferedIncomplete, with the input moved
+    // back to where it was and the list left empty, if the statement
+    // may continue past the bytes available so far; returns BufferedEnd
+    // if the end of the input was reached; returns BufferedStatement
+    // otherwise.
+    int ParseBufferedStatement(
+      Utf8CharacterInput buffered,
+      List<RDFTriple> triples) {
+      int start = buffered.GetIndex();
+      String oldBaseURI = this.baseURI;
+      buffered.ClearEndReached();
+      boolean haveStatement;
+      try {
+        haveStatement = this.ParseStatement(RDFInternal.ToSink(triples));
+      } catch (ParserException ex) {
+        if (buffered.IsEndOfInput() || !buffered.EndReached()) {
+          throw ex;
+        }
+        // The error may be due only to the data not yet available
+        haveStatement = true;
+      }
+      if (!buffered.IsEndOfInput() && buffered.EndReached()) {
+        // Prefix declarations need not be undone, since reading
+        // the statement again will declare the same prefix
+        triples.clear();
+        this.baseURI = oldBaseURI;
+        buffered.SetIndex(start);
+        return BufferedIncomplete;
+      }
+      return haveStatement ? BufferedStatement : BufferedEnd;
+    }
+
+    // Reads the next statement as ParseStatement does, unless a limit
+    // or the cancellation check stops parsing first. Returns false if
+    // no statement was read.
+    private boolean NextStatement(ITripleSink triples) {
+      if (this.limiter.ShouldStop()) {
+        this.close();
+        return false;
+      }
+      return this.ParseStatement(triples);
+    }
+
+    // Reads a directive or a triples statement, passing any triples
+    // read to the specified sink. Returns false if the end of the input
+    // was reached instead. Stops reading the input if an error occurs.
+    private boolean ParseStatement(ITripleSink triples) {
+      try {
+        return this.ReadStatement(triples);
+      } catch (IllegalStateException ex) {
+        this.close();
+        if (!(this.input instanceof StackableCharacterInput)) {
+          throw ex;
+        }
+        // The token is longer than getMaxBufferedChars
+        throw new ParserException(ex.getMessage(), ex);
+      } catch (RuntimeException ex) {
+        this.close();
+        throw ex;
+      }
+    }
+
+    private boolean ReadStatement(ITripleSink triples) {
+      this.SkipWhitespace();
+      int mark = this.input.SetHardMark();
+      int ch = this.input.ReadChar();
+      if (ch < 0) {
+        return false;
+      }
+      if (ch == '@') {
+        ch = this.input.ReadChar();
+        if (ch == 'p' && this.input.ReadChar() == 'r' &&
+          this.input.ReadChar() == 'e' &&
+          this.input.ReadChar() == 'f' && this.input.ReadChar() == 'i' &&
+          this.input.ReadChar() == 'x' && this.SkipWhitespace()) {
+          this.ReadPrefixStatement(false);
+          return true;
+        } else if (ch == 'b' && this.input.ReadChar() == 'a' &&
+          this.input.ReadChar() == 's' &&
+          this.input.ReadChar() == 'e' && this.SkipWhitespace()) {
+          this.ReadBase(false);
+          return true;
+        } else {
+          throw new ParserException();
+        }
+      } else if (ch == 'b' || ch == 'B') {
+        int c2 = 0;
+        if (((c2 = this.input.ReadChar()) == 'A' || c2 == 'a') &&
+          ((c2 = this.input.ReadChar()) == 'S' || c2 == 's') &&
+          ((c2 = this.input.ReadChar()) == 'E' || c2 == 'e') &&
+          this.SkipWhitespace()) {
+          this.ReadBase(true);
+          return true;
+        } else {
+          this.input.SetMarkPosition(mark);
+        }
+      } else if (ch == 'p' || ch == 'P') {
+        int c2 = 0;
+        if (((c2 = this.input.ReadChar()) == 'R' || c2 == 'r') &&
+          ((c2 = this.input.ReadChar()) == 'E' || c2 == 'e') &&
+          ((c2 = this.input.ReadChar()) == 'F' || c2 == 'f') &&
+          ((c2 = this.input.ReadChar()) == 'I' || c2 == 'i') &&
+          ((c2 = this.input.ReadChar()) == 'X' || c2 == 'x') &&
+          this.SkipWhitespace()) {
+          this.ReadPrefixStatement(true);
+          return true;
         } else {
           this.input.SetMarkPosition(mark);
         }
-        this.ReadTriples(triples);
+      } else {
+        this.input.SetMarkPosition(mark);
       }
+      this.ReadTriples(triples);
+      return true;
     }
 
     private void ReadBase(boolean sparql) {
@@ -428,53 +1373,30 @@ private TurtleObject propVarobj;
     }
 
     private String ReadBlankNodeLabel() {
-      StringBuilder ilist = new StringBuilder();
+      StringBuilder ilist = this.TokenBuilder();
       int startChar = this.input.ReadChar();
       if (!IsNameStartCharU(startChar) &&
         (startChar < '0' || startChar > '9')) {
         throw new ParserException();
       }
-      if (startChar <= 0xffff) {
-        {
-          ilist.append((char)startChar);
-        }
-      } else if (startChar <= 0x10ffff) {
-        ilist.append((char)((((startChar - 0x10000) >> 10) & 0x3ff) |
-          0xd800));
-        ilist.append((char)(((startChar - 0x10000) & 0x3ff) | 0xdc00));
-      }
-      boolean lastIsPeriod = false;
+      AppendCodePoint(ilist, startChar);
       this.input.SetSoftMark();
+      boolean lastIsPeriod = false;
       while (true) {
-        int ch = this.input.ReadChar();
+        int ch = this.input.ScanUntil(BlankNodeLabelDelimiter, ilist);
         if (ch == '.') {
           int position = this.input.GetMarkPosition();
           int ch2 = this.input.ReadChar();
           if (!IsNameChar(ch2) && ch2 != ':' && ch2 != '.') {
             this.input.SetMarkPosition(position - 1);
-            return ilist.toString();
+            return TokenText(ilist);
           } else {
             this.input.MoveBack(1);
           }
-          if (ch <= 0xffff) {
-            {
-              ilist.append((char)ch);
-            }
-          } else if (ch <= 0x10ffff) {
-            ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-          }
-          lastIsPeriod = true;
-        } else if (IsNameChar(ch)) {
-          if (ch <= 0xffff) {
-            {
-              ilist.append((char)ch);
-            }
-          } else if (ch <= 0x10ffff) {
-            ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-          }
-          lastIsPeriod = false;
+          AppendCodePoint(ilist, '.');
+          // The label can't end with a period, so the label is wrong
+          // unless a name character comes next
+          lastIsPeriod = !IsNameChar(ch2);
         } else {
           if (ch >= 0) {
             this.input.MoveBack(1);
@@ -482,7 +1404,7 @@ private TurtleObject propVarobj;
           if (lastIsPeriod) {
             throw new ParserException();
           }
-          return ilist.toString();
+          return TokenText(ilist);
         }
       }
     }
@@ -546,21 +1468,20 @@ private TurtleObject propVarobj;
     }
 
     private String ReadIriReference() {
-      StringBuilder ilist = new StringBuilder();
+      // Most IRI references have no escapes, and are taken from
+      // the input in one step
+      String iriref = this.input.ScanString(IriDelimiter, '>');
+      if (iriref != null) {
+        return this.ResolveIriReference(iriref);
+      }
+      StringBuilder ilist = this.Scratch();
       while (true) {
-        int ch = this.input.ReadChar();
+        int ch = this.input.ScanUntil(IriDelimiter, ilist);
         if (ch < 0) {
           throw new ParserException();
         }
         if (ch == '>') {
-          String iriref = ilist.toString();
-          // Resolve the IRI reference relative
-          // to the _base URI
-          iriref = com.upokecenter.util.URIUtility.RelativeResolve(iriref, this.baseURI);
-          if (iriref == null) {
-            throw new ParserException();
-          }
-          return iriref;
+          return this.ResolveIriReference(ilist.toString());
         } else if (ch == '\\') {
           ch = this.ReadUnicodeEscape(false);
         }
@@ -579,8 +1500,26 @@ private TurtleObject propVarobj;
       }
     }
 
+    private String ResolveIriReference(String iriref) {
+      if (this.validating) {
+        // Only check the IRI reference's syntax; resolving it
+        // would fail only if the syntax is wrong
+        if (com.upokecenter.util.URIUtility.SplitIRI(iriref) == null) {
+          throw new ParserException();
+        }
+        return iriref;
+      }
+      // Resolve the IRI reference relative
+      // to the _base URI
+      iriref = com.upokecenter.util.URIUtility.RelativeResolve(iriref, this.baseURI);
+      if (iriref == null) {
+        throw new ParserException();
+      }
+      return iriref;
+    }
+
     private String ReadLanguageTag() {
-      StringBuilder ilist = new StringBuilder();
+      StringBuilder ilist = this.TokenBuilder();
       boolean hyphen = false;
       boolean haveHyphen = false;
       boolean haveString = false;
@@ -588,36 +1527,22 @@ private TurtleObject propVarobj;
       while (true) {
         int c2 = this.input.ReadChar();
         if (c2 >= 'A' && c2 <= 'Z') {
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
-          }
+          AppendCodePoint(ilist, c2);
           haveString = true;
           hyphen = false;
         } else if (c2 >= 'a' && c2 <= 'z') {
-          ilist.append((char)c2);
+          AppendCodePoint(ilist, c2);
           haveString = true;
           hyphen = false;
         } else if (haveHyphen && (c2 >= '0' && c2 <= '9')) {
-          ilist.append((char)c2);
+          AppendCodePoint(ilist, c2);
           haveString = true;
           hyphen = false;
         } else if (c2 == '-') {
           if (hyphen || !haveString) {
             throw new ParserException();
           }
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
-          }
+          AppendCodePoint(ilist, c2);
           hyphen = true;
           haveHyphen = true;
           haveString = true;
@@ -628,7 +1553,7 @@ private TurtleObject propVarobj;
           if (hyphen || !haveString) {
             throw new ParserException();
           }
-          return ilist.toString();
+          return TokenText(ilist);
         }
       }
     }
@@ -638,7 +1563,7 @@ private TurtleObject propVarobj;
     // a dot, or a digit)
     private RDFTerm ReadNumberLiteral(int ch) {
       // buffer to hold the literal
-      StringBuilder ilist = new StringBuilder();
+      StringBuilder ilist = this.Scratch();
       // include the first character
       if (ch <= 0xffff) {
         {
@@ -702,7 +1627,7 @@ private TurtleObject propVarobj;
               if (!haveDigits) {
                 throw new ParserException();
               }
-              return RDFTerm.FromTypedString(
+              return this.NewTypedString(
                   ilist.toString(),
                   "http://www.w3.org/2001/XMLSchema#double");
             }
@@ -730,7 +1655,7 @@ private TurtleObject propVarobj;
             }
             String ns = haveDot ? "http://www.w3.org/2001/XMLSchema#decimal" :
               "http://www.w3.org/2001/XMLSchema#integer";
-            return RDFTerm.FromTypedString(
+            return this.NewTypedString(
                 ilist.toString(),
                 ns);
           } else {
@@ -753,7 +1678,7 @@ private TurtleObject propVarobj;
           }
           String ns = haveDot ? "http://www.w3.org/2001/XMLSchema#decimal" :
             "http://www.w3.org/2001/XMLSchema#integer";
-          return RDFTerm.FromTypedString(
+          return this.NewTypedString(
               ilist.toString(),
               ns);
         }
@@ -767,7 +1692,7 @@ private TurtleObject propVarobj;
         throw new ParserException();
       } else if (ch == '<') {
         return TurtleObject.FromTerm(
-            RDFTerm.FromIRI(this.ReadIriReference()));
+            this.NewIri(this.ReadIriReference()));
       } else if (acceptLiteral && (ch == '-' || ch == '+' || ch == '.' ||
         (ch >= '0' && ch <= '9'))) {
         return TurtleObject.FromTerm(this.ReadNumberLiteral(ch));
@@ -780,10 +1705,19 @@ private TurtleObject propVarobj;
           throw new ParserException();
         }
         String label = this.ReadBlankNodeLabel();
+        if (this.validating) {
+          return TurtleObject.FromTerm(ValidationTerm);
+        }
         RDFTerm term = this.bnodeLabels.containsKey(label) ?
           this.bnodeLabels.get(label) : null;
         if (term == null) {
-          term = RDFTerm.FromBlankNode(label);
+          if (this.idTable != null) {
+            term = this.idTable.GetTerm(this.idTable.NewBlankNode(label));
+          } else {
+            term = RDFTerm.FromBlankNode(
+                (this.labeler != null) ?
+                this.labeler.FromDocumentLabel(label) : label);
+          }
           this.bnodeLabels.put(label, term);
         }
         return TurtleObject.FromTerm(term);
@@ -797,7 +1731,7 @@ private TurtleObject propVarobj;
           throw new ParserException();
         }
         return TurtleObject.FromTerm(
-            RDFTerm.FromIRI(scope + this.ReadOptionalLocalName()));
+            this.NewIri(scope, this.ReadOptionalLocalName()));
       } else if (IsNameStartChar(ch)) { // prefix
         if (acceptLiteral && (ch == 't' || ch == 'f')) {
           mark = this.input.SetHardMark();
@@ -820,14 +1754,14 @@ private TurtleObject propVarobj;
           throw new ParserException();
         }
         return TurtleObject.FromTerm(
-            RDFTerm.FromIRI(scope + this.ReadOptionalLocalName()));
+            this.NewIri(scope, this.ReadOptionalLocalName()));
       } else {
         this.input.SetMarkPosition(mark);
         return null;
       }
     }
 
-    private void ReadObjectList(Set<RDFTriple> triples) {
+    private void ReadObjectList(ITripleSink triples) {
       boolean haveObject = false;
       while (true) {
         this.input.SetSoftMark();
@@ -902,14 +1836,14 @@ private TurtleObject propVarobj;
     }
 
     private String ReadOptionalLocalName() {
-      StringBuilder ilist = new StringBuilder();
+      StringBuilder ilist = this.TokenBuilder();
       boolean lastIsPeriod = false;
       boolean first = true;
       this.input.SetSoftMark();
       while (true) {
         int ch = this.input.ReadChar();
         if (ch < 0) {
-          return ilist.toString();
+          return TokenText(ilist);
         }
         if (ch == '%') {
           int a = this.input.ReadChar();
@@ -918,30 +1852,9 @@ private TurtleObject propVarobj;
             ToHexValue(b) < 0) {
             throw new ParserException();
           }
-          if (ch <= 0xffff) {
-            {
-              ilist.append((char)ch);
-            }
-          } else if (ch <= 0x10ffff) {
-            ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-          }
-          if (a <= 0xffff) {
-            {
-              ilist.append((char)a);
-            }
-          } else if (a <= 0x10ffff) {
-            ilist.append((char)((((a - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((a - 0x10000) & 0x3ff) | 0xdc00));
-          }
-          if (b <= 0xffff) {
-            {
-              ilist.append((char)b);
-            }
-          } else if (b <= 0x10ffff) {
-            ilist.append((char)((((b - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((b - 0x10000) & 0x3ff) | 0xdc00));
-          }
+          AppendCodePoint(ilist, ch);
+          AppendCodePoint(ilist, a);
+          AppendCodePoint(ilist, b);
           lastIsPeriod = false;
           first = false;
           continue;
@@ -949,14 +1862,7 @@ private TurtleObject propVarobj;
           ch = this.input.ReadChar();
           if ((ch & 0x7f) == ch &&
             "_~.-!$&'()*+,;=/?#@%".indexOf((char)ch) >= 0) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-            }
+            AppendCodePoint(ilist, ch);
           } else {
             throw new ParserException();
           }
@@ -968,7 +1874,7 @@ private TurtleObject propVarobj;
           if (!IsNameStartCharU(ch) && ch != ':' &&
             (ch < '0' || ch > '9')) {
             this.input.MoveBack(1);
-            return ilist.toString();
+            return TokenText(ilist);
           }
         } else {
           if (!IsNameChar(ch) && ch != ':' && ch != '.') {
@@ -976,7 +1882,7 @@ private TurtleObject propVarobj;
             if (lastIsPeriod) {
               throw new ParserException();
             }
-            return ilist.toString();
+            return TokenText(ilist);
           }
         }
         lastIsPeriod = ch == '.';
@@ -988,20 +1894,13 @@ private TurtleObject propVarobj;
           int ch2 = this.input.ReadChar();
           if (!IsNameChar(ch2) && ch2 != ':' && ch2 != '.') {
             this.input.SetMarkPosition(position - 1);
-            return ilist.toString();
+            return TokenText(ilist);
           } else {
             this.input.MoveBack(1);
           }
         }
         first = false;
-        if (ch <= 0xffff) {
-          {
-            ilist.append((char)ch);
-          }
-        } else if (ch <= 0x10ffff) {
-          ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-          ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-        }
+        AppendCodePoint(ilist, ch);
       }
     }
 
@@ -1020,12 +1919,12 @@ private TurtleObject propVarobj;
           if (scope == null) {
             throw new ParserException();
           }
-          predicate = RDFTerm.FromIRI(scope + this.ReadOptionalLocalName());
+          predicate = this.NewIri(scope, this.ReadOptionalLocalName());
           this.SkipWhitespace();
           return predicate;
         }
       } else if (ch == '<') {
-        predicate = RDFTerm.FromIRI(this.ReadIriReference());
+        predicate = this.NewIri(this.ReadIriReference());
         this.SkipWhitespace();
         return predicate;
       } else if (ch == ':') { // prefixed name with current prefix
@@ -1033,7 +1932,7 @@ private TurtleObject propVarobj;
         if (scope == null) {
           throw new ParserException();
         }
-        predicate = RDFTerm.FromIRI(scope + this.ReadOptionalLocalName());
+        predicate = this.NewIri(scope, this.ReadOptionalLocalName());
         this.SkipWhitespace();
         return predicate;
       } else if (IsNameStartChar(ch)) { // prefix
@@ -1042,7 +1941,7 @@ private TurtleObject propVarobj;
         if (scope == null) {
           throw new ParserException();
         }
-        predicate = RDFTerm.FromIRI(scope + this.ReadOptionalLocalName());
+        predicate = this.NewIri(scope, this.ReadOptionalLocalName());
         this.SkipWhitespace();
         return predicate;
       } else {
@@ -1051,7 +1950,7 @@ private TurtleObject propVarobj;
       }
     }
 
-    private void ReadPredicateObjectList(Set<RDFTriple> triples) {
+    private void ReadPredicateObjectList(ITripleSink triples) {
       boolean havePredObject = false;
       while (true) {
         int ch;
@@ -1109,7 +2008,7 @@ private TurtleObject propVarobj;
     }
 
     private String ReadPrefix(int startChar) {
-      StringBuilder ilist = new StringBuilder();
+      StringBuilder ilist = this.Scratch();
       boolean lastIsPeriod = false;
       boolean first = true;
       if (startChar >= 0) {
@@ -1171,12 +2070,27 @@ private TurtleObject propVarobj;
     }
 
     private String ReadStringLiteral(int ch) {
-      StringBuilder ilist = new StringBuilder();
+      IntPredicate delimiter = (ch == '\'') ? SingleQuoteDelimiter :
+        DoubleQuoteDelimiter;
+      // Most literals are short and have no escapes, and are taken
+      // from the input in one step; an empty or long literal ends
+      // this at once. While validating, the literal's text isn't
+      // made into a string, but it's still collected in the scratch
+      // builder, which is reused; that turned out faster than
+      // scanning without a builder.
+      if (!this.validating) {
+        String str = this.input.ScanString(delimiter, ch);
+        if (str != null) {
+          return str;
+        }
+      }
+      StringBuilder ilist = this.Scratch();
       boolean first = true;
       boolean longQuote = false;
       int quotecount = 0;
       while (true) {
-        int c2 = this.input.ReadChar();
+        int c2 = (first || quotecount > 0) ? this.input.ReadChar() :
+          this.input.ScanUntil(delimiter, ilist);
         if (first && c2 == ch) {
           this.input.SetHardMark();
           c2 = this.input.ReadChar();
@@ -1195,80 +2109,38 @@ private TurtleObject propVarobj;
         } else if (c2 == '\\') {
           c2 = this.ReadUnicodeEscape(true);
           if (quotecount >= 2) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-            }
+            AppendCodePoint(ilist, ch);
           }
           if (quotecount >= 1) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-            }
-          }
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
+            AppendCodePoint(ilist, ch);
           }
+          AppendCodePoint(ilist, c2);
           quotecount = 0;
         } else if (c2 == ch) {
           if (!longQuote) {
-            return ilist.toString();
+            return this.validating ? "" : ilist.toString();
           }
           ++quotecount;
           if (quotecount >= 3) {
-            return ilist.toString();
+            return this.validating ? "" : ilist.toString();
           }
         } else {
           if (c2 < 0) {
             throw new ParserException();
           }
           if (quotecount >= 2) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-            }
+            AppendCodePoint(ilist, ch);
           }
           if (quotecount >= 1) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
-            }
-          }
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) | 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) | 0xdc00));
+            AppendCodePoint(ilist, ch);
           }
+          AppendCodePoint(ilist, c2);
           quotecount = 0;
         }
       }
     }
 
-    private void ReadTriples(Set<RDFTriple> triples) {
+    private void ReadTriples(ITripleSink triples) {
       int mark = this.input.SetHardMark();
       int ch = this.input.ReadChar();
       if (ch < 0) {
@@ -1364,27 +2236,19 @@ private TurtleObject propVarobj;
     }
 
     private boolean SkipWhitespace() {
-      boolean haveWhitespace = false;
-      this.input.SetSoftMark();
+      int start = this.input.SetSoftMark();
       while (true) {
-        int ch = this.input.ReadChar();
+        int ch = this.input.ScanUntil(NonWhitespace, null);
         if (ch == '#') {
-          while (true) {
-            ch = this.input.ReadChar();
-            if (ch < 0) {
-              return true;
-            }
-            if (ch == 0x0d || ch == 0x0a) {
-              break;
-            }
+          if (this.input.ScanUntil(LineEnd, null) < 0) {
+            return true;
           }
-        } else if (ch != 0x09 && ch != 0x0a && ch != 0x0d && ch != 0x20) {
+        } else {
           if (ch >= 0) {
             this.input.MoveBack(1);
           }
-          return haveWhitespace;
+          return this.input.GetMarkPosition() > start;
         }
-        haveWhitespace = true;
       }
     }
 
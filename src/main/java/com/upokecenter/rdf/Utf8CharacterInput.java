@@ -0,0 +1,570 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.function.*;
+
+import com.upokecenter.util.*;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * A markable character input that decodes UTF-8 directly from a byte
+   * buffer. Marks are offsets into the buffer, so setting a mark or moving
+   * back doesn't copy anything. Mark positions are measured in bytes rather
+   * than code points; the parsers only subtract from a mark position to step
+   * back over an ASCII character, which is one byte long. The buffer is
+   * either filled by the caller through Append, or refilled in blocks from a
+   * byte reader as it runs out (many bytes at a time if the reader is an
+   * IByteBlockReader).
+   */
+  final class Utf8CharacterInput implements IMarkableCharacterInput,
+      IByteCounter {
+    private static final int BlockSize = 8192;
+
+    private byte[] buffer;
+    private int pos;
+    private int limit;
+    private int markStart;
+    private boolean haveMark;
+    private int lastCharStart = -1;
+
+    // Byte reader the buffer is refilled from, or null if bytes
+    // are appended by the caller
+    private IByteReader source;
+
+    // Number of bytes and code points discarded from the start
+    // of the buffer so far
+    private long discardedBytes;
+    private long discardedChars;
+
+    // Whether no more bytes will be appended
+    private boolean endOfInput;
+
+    // Whether a read ran out of bytes since the last call to
+    // ClearEndReached
+    private boolean endReached;
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.Utf8CharacterInput} class with an empty buffer,
+     * to which bytes are added with the Append method.
+     */
+    public Utf8CharacterInput() {
+      this.buffer = new byte[1024];
+    }
+
+    /**
+     * Initializes a new instance of the {@link
+     * com.upokecenter.rdf.Utf8CharacterInput} class that reads bytes from the
+     * specified byte reader, a block at a time.
+     * @param source A byte reader.
+     * @throws NullPointerException The parameter {@code source} is null.
+     */
+    public Utf8CharacterInput(IByteReader source) {
+      if (source == null) {
+        throw new NullPointerException("source");
+      }
+      this.source = source;
+      this.buffer = new byte[BlockSize];
+    }
+
+    /**
+     * Starts reading from the specified byte reader instead, as though this
+     * object were new; the buffer is kept.
+     * @param source A byte reader.
+     * @throws NullPointerException The parameter {@code source} is null.
+     */
+    public void Reset(IByteReader source) {
+      if (source == null) {
+        throw new NullPointerException("source");
+      }
+      this.source = source;
+      this.pos = 0;
+      this.limit = 0;
+      this.markStart = 0;
+      this.haveMark = false;
+      this.lastCharStart = -1;
+      this.discardedBytes = 0;
+      this.discardedChars = 0;
+      this.endOfInput = false;
+      this.endReached = false;
+    }
+
+    // Discards the bytes before the mark, or before the read position
+    // if there's no mark, then reads bytes from the source until the
+    // buffer is full or the source ends
+    private void Fill() {
+      int keep = this.haveMark ? this.markStart : this.pos;
+      if (keep > 0) {
+        this.Discard(keep);
+        this.markStart -= keep;
+        this.lastCharStart = (this.lastCharStart >= keep) ?
+          this.lastCharStart - keep : -1;
+      }
+      if (this.limit == this.buffer.length) {
+        byte[] newBuffer = new byte[this.buffer.length * 2];
+        System.arraycopy(this.buffer, 0, newBuffer, 0, this.limit);
+        this.buffer = newBuffer;
+      }
+      byte[] buf = this.buffer;
+      int end = buf.length;
+      int index = this.limit;
+      if (this.source instanceof IByteBlockReader) {
+        IByteBlockReader blockSource = (IByteBlockReader)this.source;
+        while (index < end) {
+          int count = blockSource.Read(buf, index, end - index);
+          if (count < 0) {
+            this.endOfInput = true;
+            break;
+          }
+          if (count == 0) {
+            // Would otherwise loop forever, or pass for the end of input
+            throw new UncheckedIOException(
+              new IOException("The byte reader returned no bytes"));
+          }
+          index += count;
+        }
+      } else {
+        while (index < end) {
+          int b = this.source.read();
+          if (b < 0) {
+            this.endOfInput = true;
+            break;
+          }
+          buf[index++] = (byte)b;
+        }
+      }
+      this.limit = index;
+    }
+
+    // Removes the first 'count' bytes from the buffer
+    private void Discard(int count) {
+      for (int i = 0; i < count; ++i) {
+        if ((this.buffer[i] & 0xc0) != 0x80) {
+          ++this.discardedChars;
+        }
+      }
+      this.discardedBytes += count;
+      System.arraycopy(
+        this.buffer,
+        count,
+        this.buffer,
+        0,
+        this.limit - count);
+      this.limit -= count;
+      this.pos -= count;
+    }
+
+    /**
+     * Gets the number of bytes consumed so far, counting from the start of the
+     * input.
+     * @return The number of bytes consumed.
+     */
+    public long GetByteCount() {
+      return this.discardedBytes + this.pos;
+    }
+
+    /**
+     * Gets the number of code points consumed so far, counting from the start
+     * of the input. Each byte that isn't a UTF-8 continuation byte counts as
+     * one code point.
+     * @return The number of code points consumed.
+     */
+    public long GetCharCount() {
+      long count = this.discardedChars;
+      for (int i = 0; i < this.pos; ++i) {
+        if ((this.buffer[i] & 0xc0) != 0x80) {
+          ++count;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Adds the remaining bytes of the specified buffer to the end of the input.
+     * @param data A byte buffer. Its position is moved to its limit.
+     * @throws IllegalStateException SetEndOfInput was called already.
+     */
+    public void Append(ByteBuffer data) {
+      if (this.endOfInput) {
+        throw new IllegalStateException("The end of input was already set");
+      }
+      int count = data.remaining();
+      if (count > this.buffer.length - this.limit) {
+        int needed = this.limit + count;
+        if (needed < 0) {
+          throw new OutOfMemoryError();
+        }
+        int newLength = Math.max(needed, this.buffer.length * 2);
+        if (newLength < 0) {
+          newLength = needed;
+        }
+        byte[] newBuffer = new byte[newLength];
+        System.arraycopy(this.buffer, 0, newBuffer, 0, this.limit);
+        this.buffer = newBuffer;
+      }
+      data.get(this.buffer, this.limit, count);
+      this.limit += count;
+    }
+
+    /**
+     * Specifies that no more bytes will be added to the input.
+     */
+    public void SetEndOfInput() {
+      this.endOfInput = true;
+    }
+
+    /**
+     * Gets a value indicating whether no more bytes will be added to the input.
+     * @return Either {@code true} or {@code false}.
+     */
+    public boolean IsEndOfInput() {
+      return this.endOfInput;
+    }
+
+    /**
+     * Gets a value indicating whether a read ran out of bytes since
+     * ClearEndReached was last called. If SetEndOfInput wasn't called, such a
+     * read may have cut a token short.
+     * @return Either {@code true} or {@code false}.
+     */
+    public boolean EndReached() {
+      return this.endReached;
+    }
+
+    /**
+     * Clears the flag returned by EndReached.
+     */
+    public void ClearEndReached() {
+      this.endReached = false;
+    }
+
+    /**
+     * Gets the current read position as an index into the buffer. The index
+     * remains valid until Compact is called.
+     * @return The current read position.
+     */
+    public int GetIndex() {
+      return this.pos;
+    }
+
+    /**
+     * Moves the read position to an index returned by GetIndex, and clears the
+     * mark.
+     * @param index The new read position.
+     */
+    public void SetIndex(int index) {
+      if (index < 0 || index > this.limit) {
+        throw new IllegalArgumentException("index");
+      }
+      this.pos = index;
+      this.haveMark = false;
+      this.lastCharStart = -1;
+    }
+
+    /**
+     * Discards the bytes before the current read position, and clears the mark.
+     */
+    public void Compact() {
+      if (this.pos > 0) {
+        this.Discard(this.pos);
+      }
+      this.haveMark = false;
+      this.lastCharStart = -1;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int ReadChar() {
+      if (this.limit - this.pos < 4 && this.source != null &&
+        !this.endOfInput) {
+        // Make sure a whole UTF-8 sequence is in the buffer
+        this.Fill();
+      }
+      int start = this.pos;
+      if (start >= this.limit) {
+        this.endReached = true;
+        return -1;
+      }
+      int b = this.buffer[start] & 0xff;
+      if (b < 0x80) {
+        this.lastCharStart = start;
+        this.pos = start + 1;
+        return b;
+      }
+      int bytesNeeded;
+      int lower = 0x80;
+      int upper = 0xbf;
+      int cp;
+      if (b >= 0xc2 && b <= 0xdf) {
+        bytesNeeded = 1;
+        cp = (b - 0xc0) << 6;
+      } else if (b >= 0xe0 && b <= 0xef) {
+        lower = (b == 0xe0) ? 0xa0 : 0x80;
+        upper = (b == 0xed) ? 0x9f : 0xbf;
+        bytesNeeded = 2;
+        cp = (b - 0xe0) << 12;
+      } else if (b >= 0xf0 && b <= 0xf4) {
+        lower = (b == 0xf0) ? 0x90 : 0x80;
+        upper = (b == 0xf4) ? 0x8f : 0xbf;
+        bytesNeeded = 3;
+        cp = (b - 0xf0) << 18;
+      } else {
+        // Invalid lead byte
+        this.lastCharStart = start;
+        this.pos = start + 1;
+        return 0xfffd;
+      }
+      int index = start + 1;
+      for (int i = 1; i <= bytesNeeded; ++i) {
+        if (index >= this.limit) {
+          if (!this.endOfInput) {
+            // The rest of the sequence may yet be appended
+            this.endReached = true;
+            return -1;
+          }
+          // Truncated sequence at the end of the input
+          this.lastCharStart = start;
+          this.pos = index;
+          return 0xfffd;
+        }
+        int b2 = this.buffer[index] & 0xff;
+        if (b2 < lower || b2 > upper) {
+          // Invalid continuation byte; it isn't consumed
+          this.lastCharStart = start;
+          this.pos = index;
+          return 0xfffd;
+        }
+        lower = 0x80;
+        upper = 0xbf;
+        cp += (b2 - 0x80) << (6 * (bytesNeeded - i));
+        ++index;
+      }
+      this.lastCharStart = start;
+      this.pos = index;
+      return cp;
+    }
+
+    /**
+     * Not documented yet.
+     * @param buf The parameter {@code buf} is a.getInt32()[] object.
+     * @param offset The parameter {@code offset} is a 32-bit signed integer.
+     * @param unitCount The parameter {@code unitCount} is a 32-bit signed integer.
+     * @return A 32-bit signed integer.
+     * @throws NullPointerException The parameter {@code buf} is null.
+     */
+    public int Read(int[] buf, int offset, int unitCount) {
+      if (buf == null) {
+        throw new NullPointerException("buf");
+      }
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset(" + offset +
+          ") is less than 0");
+      }
+      if (unitCount < 0) {
+        throw new IllegalArgumentException("unitCount(" + unitCount +
+          ") is less than 0");
+      }
+      if (buf.length - offset < unitCount) {
+        throw new IllegalArgumentException("buf's length minus " + offset + "(" +
+          (buf.length - offset) + ") is less than " + unitCount);
+      }
+      int count = 0;
+      while (count < unitCount) {
+        int c = this.ReadChar();
+        if (c < 0) {
+          break;
+        }
+        buf[offset + count] = c;
+        ++count;
+      }
+      return count;
+    }
+
+    /**
+     * Reads characters until one of them matches the specified predicate or the
+     * end of the input is reached, appending the others to a string builder.
+     * Runs of ASCII bytes are scanned directly from the buffer.
+     * @param delimiter A predicate that returns true for a Unicode code point
+     * that ends the scan.
+     * @param builder A string builder, or null to skip the characters read.
+     * @return The code point that matched the predicate, or -1 if the end of
+     * the input was reached first.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    public int ScanUntil(IntPredicate delimiter, StringBuilder builder) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      while (true) {
+        byte[] buf = this.buffer;
+        int index = this.pos;
+        int end = this.limit;
+        while (index < end) {
+          int b = buf[index];
+          if (b < 0) {
+            // Not ASCII
+            break;
+          }
+          if (delimiter.test(b)) {
+            this.lastCharStart = index;
+            this.pos = index + 1;
+            return b;
+          }
+          if (builder != null) {
+            builder.append((char)b);
+          }
+          ++index;
+        }
+        if (index > this.pos) {
+          this.lastCharStart = index - 1;
+          this.pos = index;
+        }
+        // Decode a non-ASCII character, or refill the buffer
+        int ch = this.ReadChar();
+        if (ch < 0 || delimiter.test(ch)) {
+          return ch;
+        }
+        if (builder != null) {
+          if (ch <= 0xffff) {
+            builder.append((char)ch);
+          } else {
+            builder.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
+            builder.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
+          }
+        }
+      }
+    }
+
+    /**
+     * Reads a run of characters that ends with the specified character and
+     * returns the characters before it as a string, made directly from the
+     * buffer's bytes. Only runs of ASCII bytes that are already in the buffer
+     * are read this way.
+     * @param delimiter A predicate that returns true for a Unicode code point
+     * that ends the run, including {@code end}.
+     * @param end The code point expected to end the run.
+     * @return The characters before {@code end}, which was read, or null if
+     * nothing was read.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    public String ScanString(IntPredicate delimiter, int end) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      byte[] buf = this.buffer;
+      int start = this.pos;
+      int index = start;
+      int limit = this.limit;
+      while (index < limit) {
+        int b = buf[index];
+        if (b < 0) {
+          // Not ASCII
+          return null;
+        }
+        if (delimiter.test(b)) {
+          if (b != end || index == start) {
+            return null;
+          }
+          this.lastCharStart = index;
+          this.pos = index + 1;
+          return new String(
+            buf,
+            start,
+            index - start,
+            StandardCharsets.US_ASCII);
+        }
+        ++index;
+      }
+      // The run may continue past the buffer
+      return null;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int GetMarkPosition() {
+      return this.pos - this.markStart;
+    }
+
+    /**
+     * Not documented yet.
+     * @param count The parameter {@code count} is a 32-bit signed integer.
+     */
+    public void MoveBack(int count) {
+      if (count < 0) {
+        throw new IllegalArgumentException("count(" + count +
+          ") is not greater or equal to 0");
+      }
+      if (!this.haveMark) {
+        throw new IllegalStateException();
+      }
+      if (count == 0) {
+        return;
+      }
+      int newPos = this.pos;
+      if (this.lastCharStart >= this.markStart) {
+        // Start of the last character read is known
+        newPos = this.lastCharStart;
+        --count;
+      }
+      while (count > 0) {
+        if (newPos <= this.markStart) {
+          throw new IllegalStateException();
+        }
+        --newPos;
+        while (newPos > this.markStart &&
+          (this.buffer[newPos] & 0xc0) == 0x80) {
+          --newPos;
+        }
+        --count;
+      }
+      this.pos = newPos;
+      this.lastCharStart = -1;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int SetHardMark() {
+      this.markStart = this.pos;
+      this.haveMark = true;
+      this.lastCharStart = -1;
+      return 0;
+    }
+
+    /**
+     * Not documented yet.
+     * @param pos The parameter {@code pos} is a 32-bit signed integer.
+     */
+    public void SetMarkPosition(int pos) {
+      if (!this.haveMark || pos < 0 || pos > this.limit - this.markStart) {
+        throw new IllegalStateException();
+      }
+      this.pos = this.markStart + pos;
+      this.lastCharStart = -1;
+    }
+
+    /**
+     * Not documented yet.
+     * @return A 32-bit signed integer.
+     */
+    public int SetSoftMark() {
+      if (!this.haveMark) {
+        this.SetHardMark();
+      }
+      return this.GetMarkPosition();
+    }
+  }
@@ -0,0 +1,86 @@
+package com.upokecenter.rdf;
+
+/*
+Written in 2013 by Peter Occil.
+Any copyright to this work is released to the Public Domain.
+In case this is not possible, this work is also
+licensed under the Unlicense: https://unlicense.org/
+
+*/
+
+  /**
+   * The result of checking the syntax of an RDF document with the Validate
+   * method of a parser.
+   */
+  public final class ValidationResult {
+    private final long statementCount;
+    private final long tripleCount;
+    private final long errorPosition;
+    private final ParserException error;
+
+    ValidationResult(
+      long statementCount,
+      long tripleCount,
+      long errorPosition,
+      ParserException error) {
+      this.statementCount = statementCount;
+      this.tripleCount = tripleCount;
+      this.errorPosition = errorPosition;
+      this.error = error;
+    }
+
+    /**
+     * Gets a value indicating whether no syntax error was found.
+     * @return Either {@code true} or {@code false}.
+     */
+    public boolean IsValid() {
+      return this.error == null;
+    }
+
+    /**
+     * Gets the number of statements (including directives) read completely
+     * before the end of the input or the first error.
+     * @return The number of statements read.
+     */
+    public long GetStatementCount() {
+      return this.statementCount;
+    }
+
+    /**
+     * Gets the number of RDF triples in the statements read completely before
+     * the end of the input or the first error.
+     * @return The number of triples read.
+     */
+    public long GetTripleCount() {
+      return this.tripleCount;
+    }
+
+    /**
+     * Gets the position, in Unicode code points from the start of the input,
+     * at which the first syntax error was detected.
+     * @return The position of the first error, or -1 if no error was found or
+     * the position isn't known.
+     */
+    public long GetErrorPosition() {
+      return this.errorPosition;
+    }
+
+    /**
+     * Gets the exception describing the first syntax error.
+     * @return The exception for the first error, or null if no error was
+     * found.
+     */
+    public ParserException GetError() {
+      return this.error;
+    }
+
+    /**
+     * Gets a string representation of this object.
+     * @return A string representation of this object.
+     */
+    @Override public String toString() {
+      return this.IsValid() ? ("valid, " + this.tripleCount + " triples") :
+        ("invalid at position " + this.errorPosition + ", " +
+          this.tripleCount + " triples before the error");
+    }
+  }
@@ -1,4 +1,6 @@
 package com.upokecenter.util;
+import java.util.function.*;
+
 import com.upokecenter.text.*;
 
 /*
@@ -44,4 +46,60 @@ licensed under the Unlicense: https://unlicense.org/
      * @return The return value is not documented yet.
      */
     int SetSoftMark();
+
+    /**
+     * Reads characters until one of them matches the specified predicate or the
+     * end of the input is reached. The characters that don't match are
+     * appended to a string builder (as UTF-16 code units); the matching
+     * character is consumed but not appended. Implementations may override
+     * this method to scan their buffers without a call per character.
+     * @param delimiter A predicate that returns true for a Unicode code point
+     * that ends the scan.
+     * @param builder A string builder, or null to skip the characters read.
+     * @return The code point that matched the predicate, or -1 if the end of
+     * the input was reached first.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    default int ScanUntil(IntPredicate delimiter, StringBuilder builder) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      while (true) {
+        int ch = this.ReadChar();
+        if (ch < 0 || delimiter.test(ch)) {
+          return ch;
+        }
+        if (builder != null) {
+          if (ch <= 0xffff) {
+            builder.append((char)ch);
+          } else if (ch <= 0x10ffff) {
+            builder.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
+            builder.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
+          }
+        }
+      }
+    }
+
+    /**
+     * Reads a run of characters that ends with the specified character and
+     * returns the characters before it as a string, built in one step from
+     * the input's buffer rather than through a string builder. This succeeds
+     * only if the run isn't empty, the first character that matches the
+     * predicate is {@code end}, and the whole run is in the buffer; {@code
+     * end} is then consumed. Otherwise, for example if the run contains an
+     * escape character that the predicate matches, nothing is read and the
+     * caller reads the run in the usual way. The default implementation
+     * always returns null.
+     * @param delimiter A predicate that returns true for a Unicode code point
+     * that ends the run, including {@code end}.
+     * @param end The code point expected to end the run.
+     * @return The characters before {@code end}, or null if nothing was read.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    default String ScanString(IntPredicate delimiter, int end) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      return null;
+    }
   }
@@ -1,6 +1,7 @@
 package com.upokecenter.util;
 
 import java.util.*;
+import java.util.function.*;
 
 import com.upokecenter.util.*;
 import com.upokecenter.text.*;
@@ -98,6 +99,23 @@ licensed under the Unlicense: https://unlicense.org/
       }
     }
 
+    // Initial size of the mark buffer
+    private static final int InitialBufferSize = 1024;
+
+    // Largest number of elements the mark buffer grows by at once
+    private static final int MaxGrowth = 1 << 20;
+
+    /**
+     * The default maximum number of characters in the marked region, which is
+     * 2^26 (a mark buffer of 256 MiB).
+     */
+    public static final int DefaultMaxBufferSize = 1 << 26;
+
+    private int maxBufferSize = DefaultMaxBufferSize;
+
+    // The marked region is buffer[markStart, endpos); positions
+    // reported to callers are relative to markStart
+    private int markStart;
     private int pos;
     private int endpos;
     private boolean haveMark;
@@ -113,12 +131,59 @@ licensed under the Unlicense: https://unlicense.org/
       this.stack.add(source);
     }
 
+    /**
+     * Replaces the inputs of this object with the specified input and clears
+     * the mark, so that this object can be used again. The mark buffer is
+     * kept.
+     * @param source The parameter {@code source} is an ICharacterInput object.
+     * @throws NullPointerException The parameter {@code source} is null.
+     */
+    public void Reset(ICharacterInput source) {
+      if (source == null) {
+        throw new NullPointerException("source");
+      }
+      this.stack.clear();
+      this.stack.add(source);
+      this.haveMark = false;
+      this.markStart = 0;
+      this.pos = 0;
+      this.endpos = 0;
+    }
+
+    /**
+     * Gets the maximum number of characters the marked region can hold, that
+     * is, how far past the mark this object can read before it throws
+     * IllegalStateException.
+     * @return The maximum number of characters. The default is
+     * DefaultMaxBufferSize.
+     */
+    public int GetMaxBufferSize() {
+      return this.maxBufferSize;
+    }
+
+    /**
+     * Sets the maximum number of characters the marked region can hold.
+     * Reading more characters than that past the mark throws
+     * IllegalStateException, so that a token or statement of unlimited length
+     * can't use unlimited memory. Should be set before reading begins.
+     * @param value The maximum number of characters.
+     * @throws IllegalArgumentException The parameter {@code value} is less than
+     * 1.
+     */
+    public void SetMaxBufferSize(int value) {
+      if (value < 1) {
+        throw new IllegalArgumentException("value(" + value +
+          ") is less than 1");
+      }
+      this.maxBufferSize = value;
+    }
+
     /**
      * Not documented yet.
      * @return A 32-bit signed integer.
      */
     public int GetMarkPosition() {
-      return this.pos;
+      return this.pos - this.markStart;
     }
 
     /**
@@ -130,13 +195,60 @@ licensed under the Unlicense: https://unlicense.org/
         throw new IllegalArgumentException("count(" + count +
           ") is not greater or equal to 0");
       }
-      if (this.haveMark && this.pos >= count) {
+      if (this.haveMark && this.pos - this.markStart >= count) {
         this.pos -= count;
         return;
       }
       throw new IllegalStateException();
     }
 
+    /**
+     * Gets the number of characters that were read from the underlying input
+     * but not yet returned by this object, because they follow the current
+     * position within the marked region.
+     * @return The number of characters read ahead.
+     */
+    public int GetUnreadCount() {
+      return this.haveMark ? this.endpos - this.pos : 0;
+    }
+
+    // Makes room for at least 'needed' more elements after endpos.
+    // The marked region is moved to the start of the buffer if that
+    // leaves the buffer no more than half full; otherwise the buffer
+    // grows, doubling each time but by no more than MaxGrowth elements,
+    // and never past the maximum buffer size.
+    private void MakeRoom(int needed) {
+      int length = this.endpos - this.markStart;
+      if (length + needed <= (this.buffer.length >> 1)) {
+        if (this.markStart > 0) {
+          System.arraycopy(this.buffer, this.markStart, this.buffer, 0, length);
+          this.pos -= this.markStart;
+          this.endpos = length;
+          this.markStart = 0;
+        }
+        return;
+      }
+      if (this.buffer.length - this.endpos >= needed) {
+        return;
+      }
+      int minLength = length + needed;
+      if (minLength < 0 || minLength > this.maxBufferSize) {
+        throw new IllegalStateException("Marked region exceeds " +
+          this.maxBufferSize + " characters");
+      }
+      int newLength = this.buffer.length + Math.min(
+        this.buffer.length,
+        MaxGrowth);
+      newLength = (newLength < 0) ? minLength : Math.max(newLength, minLength);
+      newLength = Math.min(newLength, this.maxBufferSize);
+      int[] newBuffer = new int[newLength];
+      System.arraycopy(this.buffer, this.markStart, newBuffer, 0, length);
+      this.buffer = newBuffer;
+      this.pos -= this.markStart;
+      this.endpos = length;
+      this.markStart = 0;
+    }
+
     /**
      * Not documented yet.
      * @param input The parameter {@code input} is a.getText().ICharacterInput object.
@@ -165,48 +277,30 @@ licensed under the Unlicense: https://unlicense.org/
       if (this.haveMark) {
         // Read from buffer
         if (this.pos < this.endpos) {
-          int ch = this.buffer[this.pos++];
-          // System.out.println ("buffer: [" + ch + "],["+(char)ch+"]");
-          return ch;
+          return this.buffer[this.pos++];
         }
-        // System.out.println(this);
-        // End pos is smaller than buffer size, fill
-        // entire buffer if possible
-        if (this.endpos < this.buffer.length) {
-          int count = this.ReadInternal(
-              this.buffer,
-              this.endpos,
-              this.buffer.length - this.endpos);
-          if (count > 0) {
-            this.endpos += count;
-          }
+        if (this.endpos == this.buffer.length) {
+          this.MakeRoom(1);
         }
-        // Try reading from buffer again
-        if (this.pos < this.endpos) {
-          int ch = this.buffer[this.pos++];
-          // System.out.println ("buffer2: [" + ch + "],[" + charch + "]");
-          return ch;
+        // Fill the rest of the buffer if possible
+        int count = this.ReadInternal(
+            this.buffer,
+            this.endpos,
+            this.buffer.length - this.endpos);
+        if (count > 0) {
+          this.endpos += count;
+          return this.buffer[this.pos++];
         }
-        // System.out.println(this);
-        // No room, read next character and put it in buffer
+        // Read next character and put it in buffer
         int c = this.ReadInternal();
         if (c < 0) {
           return c;
         }
-        if (this.pos >= this.buffer.length) {
-          int[] newBuffer = new int[this.buffer.length * 2];
-          System.arraycopy(this.buffer, 0, newBuffer, 0, this.buffer.length);
-          this.buffer = newBuffer;
-        }
-        // System.out.println(this);
         this.buffer[this.pos++] = c;
         ++this.endpos;
-        // System.out.println ("readInt3: [" + c + "],[" + charc + "]");
         return c;
       } else {
-        int c = this.ReadInternal();
-        // System.out.println ("readInt3: [" + c + "],[" + charc + "]");
-        return c;
+        return this.ReadInternal();
       }
     }
 
@@ -252,53 +346,26 @@ licensed under the Unlicense: https://unlicense.org/
           this.pos += unitCount;
           return unitCount;
         }
-        // End pos is smaller than buffer size, fill
-        // entire buffer if possible
-        int count = 0;
-        if (this.endpos < this.buffer.length) {
-          count = this.ReadInternal(
-              this.buffer,
-              this.endpos,
-              this.buffer.length - this.endpos);
-          // System.out.println("%s",this);
-          if (count > 0) {
-            this.endpos += count;
-          }
+        // Make room for the rest of the request, then fill the
+        // entire buffer if possible. The request is shortened so
+        // that the marked region stays within the maximum size.
+        int request = Math.min(
+          unitCount,
+          Math.max(1, this.maxBufferSize - (this.pos - this.markStart)));
+        if (this.pos + request > this.buffer.length) {
+          this.MakeRoom(this.pos + request - this.endpos);
         }
-        int total = 0;
-        // Try reading from buffer again
-        if (this.pos + unitCount <= this.endpos) {
-          System.arraycopy(this.buffer, this.pos, buf, offset, unitCount);
-          this.pos += unitCount;
-          return unitCount;
-        }
-        // expand the buffer
-        if (this.pos + unitCount > this.buffer.length) {
-          int[] newBuffer = new int[(this.buffer.length * 2) + unitCount];
-          System.arraycopy(this.buffer, 0, newBuffer, 0, this.buffer.length);
-          this.buffer = newBuffer;
-        }
-        count = this.ReadInternal(
+        int count = this.ReadInternal(
             this.buffer,
             this.endpos,
-            Math.min(unitCount, this.buffer.length - this.endpos));
+            this.buffer.length - this.endpos);
         if (count > 0) {
           this.endpos += count;
         }
-        // Try reading from buffer a third time
-        if (this.pos + unitCount <= this.endpos) {
-          System.arraycopy(this.buffer, this.pos, buf, offset, unitCount);
-          this.pos += unitCount;
-          total += unitCount;
-        } else if (this.endpos > this.pos) {
-          System.arraycopy(
-            this.buffer,
-            this.pos,
-            buf,
-            offset,
-            this.endpos - this.pos);
-          total += this.endpos - this.pos;
-          this.pos = this.endpos;
+        int total = Math.min(unitCount, this.endpos - this.pos);
+        if (total > 0) {
+          System.arraycopy(this.buffer, this.pos, buf, offset, total);
+          this.pos += total;
         }
         return total;
       } else {
@@ -306,6 +373,59 @@ licensed under the Unlicense: https://unlicense.org/
       }
     }
 
+    /**
+     * Reads characters until one of them matches the specified predicate or the
+     * end of the input is reached, appending the others to a string builder.
+     * If a mark is set, the characters already in the buffer are scanned
+     * directly.
+     * @param delimiter A predicate that returns true for a Unicode code point
+     * that ends the scan.
+     * @param builder A string builder, or null to skip the characters read.
+     * @return The code point that matched the predicate, or -1 if the end of
+     * the input was reached first.
+     * @throws NullPointerException The parameter {@code delimiter} is null.
+     */
+    public int ScanUntil(IntPredicate delimiter, StringBuilder builder) {
+      if (delimiter == null) {
+        throw new NullPointerException("delimiter");
+      }
+      while (true) {
+        if (this.haveMark) {
+          int[] buf = this.buffer;
+          int index = this.pos;
+          int end = this.endpos;
+          while (index < end) {
+            int ch = buf[index++];
+            if (delimiter.test(ch)) {
+              this.pos = index;
+              return ch;
+            }
+            if (builder != null) {
+              AppendCodePoint(builder, ch);
+            }
+          }
+          this.pos = index;
+        }
+        // Buffer is used up or there's no mark
+        int ch = this.ReadChar();
+        if (ch < 0 || delimiter.test(ch)) {
+          return ch;
+        }
+        if (builder != null) {
+          AppendCodePoint(builder, ch);
+        }
+      }
+    }
+
+    private static void AppendCodePoint(StringBuilder builder, int ch) {
+      if (ch <= 0xffff) {
+        builder.append((char)ch);
+      } else if (ch <= 0x10ffff) {
+        builder.append((char)((((ch - 0x10000) >> 10) & 0x3ff) | 0xd800));
+        builder.append((char)(((ch - 0x10000) & 0x3ff) | 0xdc00));
+      }
+    }
+
     private int ReadInternal() {
       if (this.stack.size() == 0) {
         return -1;
@@ -353,23 +473,24 @@ licensed under the Unlicense: https://unlicense.org/
      */
     public int SetHardMark() {
       if (this.buffer == null) {
-        this.buffer = new int[16];
+        this.buffer = new int[Math.min(
+          InitialBufferSize,
+          this.maxBufferSize)];
+        this.markStart = 0;
         this.pos = 0;
         this.endpos = 0;
         this.haveMark = true;
       } else if (this.haveMark) {
-        // Already have a mark; shift buffer to the new mark
-        if (this.pos > 0 && this.pos < this.endpos) {
-          System.arraycopy(
-            this.buffer,
-            this.pos,
-            this.buffer,
-            0,
-            this.endpos - this.pos);
+        // Already have a mark; move the mark to the current position
+        // without copying the buffer
+        if (this.pos == this.endpos) {
+          // Nothing left to keep, so start over at the beginning
+          this.pos = 0;
+          this.endpos = 0;
         }
-        this.endpos -= this.pos;
-        this.pos = 0;
+        this.markStart = this.pos;
       } else {
+        this.markStart = 0;
         this.pos = 0;
         this.endpos = 0;
         this.haveMark = true;
@@ -382,10 +503,10 @@ licensed under the Unlicense: https://unlicense.org/
      * @param pos The parameter {@code pos} is a 32-bit signed integer.
      */
     public void SetMarkPosition(int pos) {
-      if (!this.haveMark || pos < 0 || pos > this.endpos) {
+      if (!this.haveMark || pos < 0 || pos > this.endpos - this.markStart) {
         throw new IllegalStateException();
       }
-      this.pos = pos;
+      this.pos = this.markStart + pos;
     }
 
     /**
@@ -0,0 +1,179 @@
+package com.upokecenter.rdf;
+
+import java.lang.reflect.*;
+import java.nio.*;
+import java.util.*;
+import java.util.function.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class AsciiCharacterInputTest {
+    // Gets the delimiter tables the parsers scan with
+    private static List<CodePointTable> GetTables() throws Exception {
+      List<CodePointTable> tables = new ArrayList<CodePointTable>();
+      Class<?>[] parsers = new Class<?>[] {
+        NTriplesParser.class, TurtleParser.class,
+      };
+      for (Class<?> parser : parsers) {
+        for (Field field : parser.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()) &&
+            field.getType() == IntPredicate.class) {
+            field.setAccessible(true);
+            Object value = field.get(null);
+            if (value instanceof CodePointTable) {
+              tables.add((CodePointTable)value);
+            }
+          }
+        }
+      }
+      Assert.assertTrue(tables.size() >= 10);
+      return tables;
+    }
+
+    // Makes random bytes, mostly ASCII text with some delimiters and
+    // some bytes 0x80 and above
+    private static byte[] RandomBytes(Random rand, int length) {
+      byte[] bytes = new byte[length];
+      for (int i = 0; i < length; ++i) {
+        int kind = rand.nextInt(20);
+        bytes[i] = (byte)((kind == 0) ? 0x80 + rand.nextInt(0x80) :
+          (kind == 1) ? rand.nextInt(0x20) : (kind == 2) ?
+          "\"\\<>{}|^`'.:_-# \t\n\r".charAt(rand.nextInt(19)) :
+          0x20 + rand.nextInt(0x5f));
+      }
+      return bytes;
+    }
+
+    private static int CharAt(byte[] bytes, int index) {
+      int b = bytes[index] & 0xff;
+      return (b < 0x80) ? b : 0xfffd;
+    }
+
+    // Finds the first character in the set one byte at a time
+    private static int ScalarIndexOf(
+      byte[] bytes,
+      int start,
+      int end,
+      IntPredicate table) {
+      int i = start;
+      while (i < end && !table.test(CharAt(bytes, i))) {
+        ++i;
+      }
+      return i;
+    }
+
+    // Makes heap and direct buffers holding the specified bytes, one of
+    // them with an array offset
+    private static ByteBuffer[] MakeBuffers(byte[] bytes) {
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      direct.put(bytes);
+      ((Buffer)direct).clear();
+      byte[] padded = new byte[bytes.length + 3];
+      System.arraycopy(bytes, 0, padded, 3, bytes.length);
+      ByteBuffer offset = ByteBuffer.wrap(padded);
+      ((Buffer)offset).position(3);
+      return new ByteBuffer[] {
+        ByteBuffer.wrap(bytes), direct, offset.slice(),
+      };
+    }
+
+    @Test
+    public void TestScanUntilMatchesScalarScan() throws Exception {
+      Random rand = new Random(20);
+      for (CodePointTable table : GetTables()) {
+        for (int trial = 0; trial < 200; ++trial) {
+          // Lengths not a multiple of eight leave unaligned tails
+          byte[] bytes = RandomBytes(rand, rand.nextInt(40));
+          for (ByteBuffer buffer : MakeBuffers(bytes)) {
+            for (int start = 0; start <= Math.min(bytes.length, 9); ++start) {
+              AsciiCharacterInput input = new AsciiCharacterInput(buffer);
+              for (int i = 0; i < start; ++i) {
+                input.ReadChar();
+              }
+              StringBuilder builder = new StringBuilder();
+              int ch = input.ScanUntil(table, builder);
+              int index = ScalarIndexOf(bytes, start, bytes.length, table);
+              StringBuilder expected = new StringBuilder();
+              for (int i = start; i < index; ++i) {
+                expected.append((char)CharAt(bytes, i));
+              }
+              Assert.assertEquals(expected.toString(), builder.toString());
+              if (index == bytes.length) {
+                Assert.assertEquals(-1, ch);
+                Assert.assertEquals(bytes.length, input.GetCharCount());
+              } else {
+                Assert.assertEquals(CharAt(bytes, index), ch);
+                Assert.assertEquals(index + 1, input.GetCharCount());
+              }
+            }
+          }
+        }
+      }
+    }
+
+    @Test
+    public void TestScanStringMatchesScalarScan() throws Exception {
+      Random rand = new Random(21);
+      int[] ends = new int[] { '>', '\"', '\'', '.', 0x0a, ' ' };
+      for (CodePointTable table : GetTables()) {
+        for (int trial = 0; trial < 200; ++trial) {
+          byte[] bytes = RandomBytes(rand, rand.nextInt(40));
+          for (ByteBuffer buffer : MakeBuffers(bytes)) {
+            for (int start = 0; start <= Math.min(bytes.length, 9); ++start) {
+              int end = ends[rand.nextInt(ends.length)];
+              AsciiCharacterInput input = new AsciiCharacterInput(buffer);
+              for (int i = 0; i < start; ++i) {
+                input.ReadChar();
+              }
+              String str = input.ScanString(table, end);
+              int index = ScalarIndexOf(bytes, start, bytes.length, table);
+              if (index == start || index == bytes.length ||
+                CharAt(bytes, index) != end) {
+                Assert.assertNull(str);
+                Assert.assertEquals(start, input.GetCharCount());
+              } else {
+                StringBuilder expected = new StringBuilder();
+                for (int i = start; i < index; ++i) {
+                  expected.append((char)CharAt(bytes, i));
+                }
+                Assert.assertEquals(expected.toString(), str);
+                Assert.assertEquals(index + 1, input.GetCharCount());
+              }
+            }
+          }
+        }
+      }
+    }
+
+    @Test
+    public void TestFlagBytes() throws Exception {
+      Random rand = new Random(22);
+      for (CodePointTable table : GetTables()) {
+        if (!table.HasWordCheck()) {
+          continue;
+        }
+        for (int trial = 0; trial < 2000; ++trial) {
+          byte[] bytes = RandomBytes(rand, 8);
+          ByteBuffer buffer = ByteBuffer.wrap(bytes)
+            .order(ByteOrder.LITTLE_ENDIAN);
+          long flags = table.FlagBytes(buffer.getLong(0));
+          int first = (flags == 0) ? 8 :
+            Long.numberOfTrailingZeros(flags) >> 3;
+          if (flags != 0) {
+            Assert.assertEquals(7, Long.numberOfTrailingZeros(flags) & 7);
+          }
+          // No byte in the set, and no byte 0x80 or above, comes before
+          // the first flagged byte
+          for (int i = 0; i < first; ++i) {
+            Assert.assertTrue(bytes[i] >= 0);
+            Assert.assertFalse(table.test(bytes[i]));
+          }
+        }
+        // Every byte 0x80 and above is flagged
+        for (int b = 0x80; b < 0x100; ++b) {
+          long word = 0x2020202020202000L | b;
+          Assert.assertTrue((table.FlagBytes(word) & 0x80) != 0);
+        }
+      }
+    }
+  }
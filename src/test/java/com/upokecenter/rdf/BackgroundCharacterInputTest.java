@@ -0,0 +1,103 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class BackgroundCharacterInputTest {
+    // Stream that records whether it was closed
+    private static final class ClosingStream extends ByteArrayInputStream {
+      private volatile boolean closed;
+
+      public ClosingStream(byte[] bytes) {
+        super(bytes);
+      }
+
+      @Override public void close() throws IOException {
+        this.closed = true;
+        super.close();
+      }
+    }
+
+    // Makes gzip-compressed N-Triples data much longer than the
+    // blocks the decoding thread keeps ahead of the parser
+    private static byte[] MakeData(String firstLine) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+        gzip.write(firstLine.getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < 50000; ++i) {
+          gzip.write(("<http://example.com/s" + i +
+            "> <http://example.com/p> \"o\" .\n").getBytes(
+            StandardCharsets.US_ASCII));
+        }
+      }
+      return bytes.toByteArray();
+    }
+
+    private static void AssertClosed(ClosingStream stream) {
+      long end = System.currentTimeMillis() + 10000;
+      while (!stream.closed && System.currentTimeMillis() < end) {
+        Thread.yield();
+      }
+      Assert.assertTrue(stream.closed);
+    }
+
+    @Test
+    public void TestClosedAfterTripleLimit() throws IOException {
+      ClosingStream stream = new ClosingStream(MakeData(""));
+      NTriplesParser parser = NTriplesParser.FromGzip(stream);
+      parser.setMaxTriples(10);
+      Assert.assertEquals(10, parser.Parse().size());
+      Assert.assertTrue(parser.getStoppedEarly());
+      AssertClosed(stream);
+    }
+
+    @Test
+    public void TestClosedExplicitly() throws IOException {
+      ClosingStream stream = new ClosingStream(MakeData(""));
+      NTriplesParser parser = NTriplesParser.FromGzip(stream);
+      Iterator<RDFTriple> iterator = parser.ParseIterator();
+      Assert.assertTrue(iterator.hasNext());
+      parser.close();
+      AssertClosed(stream);
+      // The input now ends where it was closed, which can be in the
+      // middle of a line
+      int count = 0;
+      try {
+        while (iterator.hasNext()) {
+          iterator.next();
+          ++count;
+        }
+      } catch (ParserException ex) {
+        // NOTE: Intentionally empty
+      }
+      Assert.assertTrue(count < 50000);
+    }
+
+    @Test
+    public void TestClosedAfterSyntaxError() throws IOException {
+      ClosingStream stream = new ClosingStream(MakeData("invalid\n"));
+      TurtleParser turtle = TurtleParser.FromGzip(stream, "http://a/");
+      try {
+        turtle.Parse();
+        Assert.fail("Should have failed");
+      } catch (ParserException ex) {
+        // NOTE: Intentionally empty
+      }
+      AssertClosed(stream);
+    }
+
+    @Test
+    public void TestClosedWithStream() throws IOException {
+      ClosingStream stream = new ClosingStream(MakeData(""));
+      TurtleParser parser = TurtleParser.FromGzip(stream, "http://a/");
+      try (java.util.stream.Stream<RDFTriple> triples =
+        parser.ParseStream()) {
+        Assert.assertEquals(5, triples.limit(5).count());
+      }
+      AssertClosed(stream);
+    }
+  }
@@ -0,0 +1,63 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class ChannelReaderTest {
+    // Channel that never has bytes to read
+    private static final class EmptyChannel implements ReadableByteChannel {
+      private int reads;
+
+      public int read(ByteBuffer dst) {
+        ++this.reads;
+        return 0;
+      }
+
+      public boolean isOpen() {
+        return true;
+      }
+
+      public void close() {
+      }
+    }
+
+    @Test
+    public void TestNonBlockingChannel() throws IOException {
+      Pipe pipe = Pipe.open();
+      try {
+        pipe.source().configureBlocking(false);
+        try {
+          new NTriplesParser(pipe.source());
+          Assert.fail("Should have failed");
+        } catch (IllegalArgumentException ex) {
+          // NOTE: Intentionally empty
+        }
+      } finally {
+        pipe.source().close();
+        pipe.sink().close();
+      }
+    }
+
+    @Test(timeout = 10000)
+    public void TestChannelReturningNoBytes() {
+      EmptyChannel channel = new EmptyChannel();
+      try {
+        new TurtleParser(channel).Parse();
+        Assert.fail("Should have failed");
+      } catch (UncheckedIOException ex) {
+        // NOTE: Intentionally empty
+      }
+      Assert.assertTrue(channel.reads > 1);
+    }
+
+    @Test
+    public void TestChannel() {
+      byte[] bytes = "<http://a/s> <http://a/p> \"x\" .\n".getBytes();
+      ReadableByteChannel channel = Channels.newChannel(
+        new ByteArrayInputStream(bytes));
+      Assert.assertEquals(1, new NTriplesParser(channel).Parse().size());
+    }
+  }
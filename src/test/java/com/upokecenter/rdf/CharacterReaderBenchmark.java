@@ -0,0 +1,72 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+  /**
+   * Measures decoding UTF-8 bytes through CharacterReader, one character at a
+   * time and in blocks, with the encoding declared (mode 0) and detected
+   * (mode 2). Run with, for example:
+   * {@code java -cp target/test-classes:target/classes:<dependencies>
+   * org.openjdk.jmh.Main CharacterReaderBenchmark}
+   */
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Fork(1)
+  @State(Scope.Benchmark)
+  public class CharacterReaderBenchmark {
+    @Param({ "0", "2" })
+    public int mode;
+
+    private byte[] data;
+    private int[] chars;
+
+    @Setup
+    public void Setup() {
+      // N-Triples text, mostly ASCII with some 2- and 3-byte characters
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < 50000; ++i) {
+        builder.append("<http://example.com/s").append(i % 1000)
+          .append("> <http://example.com/p> \"café ").append(i)
+          .append(" €\"@fr .\n");
+      }
+      this.data = builder.toString().getBytes(StandardCharsets.UTF_8);
+      this.chars = new int[8192];
+    }
+
+    @Benchmark
+    public long ReadChar() {
+      CharacterReader reader = new CharacterReader(
+        new ByteArrayInputStream(this.data),
+        this.mode);
+      long sum = 0;
+      while (true) {
+        int c = reader.ReadChar();
+        if (c < 0) {
+          return sum;
+        }
+        sum += c;
+      }
+    }
+
+    @Benchmark
+    public long ReadBlocks() {
+      CharacterReader reader = new CharacterReader(
+        new ByteArrayInputStream(this.data),
+        this.mode);
+      long sum = 0;
+      while (true) {
+        int count = reader.Read(this.chars, 0, this.chars.length);
+        if (count == 0) {
+          return sum;
+        }
+        for (int i = 0; i < count; ++i) {
+          sum += this.chars[i];
+        }
+      }
+    }
+  }
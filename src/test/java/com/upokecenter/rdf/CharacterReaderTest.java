@@ -0,0 +1,156 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class CharacterReaderTest {
+    private static int[] ReadAll(CharacterReader reader) {
+      int[] chars = new int[64];
+      int count = 0;
+      while (true) {
+        int c = reader.ReadChar();
+        if (c < 0) {
+          return Arrays.copyOf(chars, count);
+        }
+        if (count == chars.length) {
+          chars = Arrays.copyOf(chars, count * 2);
+        }
+        chars[count++] = c;
+      }
+    }
+
+    // Reads in blocks of random sizes, some of them 0
+    private static int[] ReadAllInBlocks(CharacterReader reader, Random rand) {
+      int[] chars = new int[64];
+      int count = 0;
+      while (true) {
+        int length = rand.nextInt(40);
+        if (chars.length - count < length) {
+          chars = Arrays.copyOf(chars, (count + length) * 2);
+        }
+        int read = reader.Read(chars, count, length);
+        if (read == 0 && length > 0) {
+          return Arrays.copyOf(chars, count);
+        }
+        count += read;
+      }
+    }
+
+    private static CharacterReader FromBytes(byte[] bytes, int mode) {
+      return new CharacterReader(new ByteArrayInputStream(bytes), mode);
+    }
+
+    private static int[] CodePoints(String str) {
+      return str.codePoints().toArray();
+    }
+
+    @Test
+    public void TestDeclaredUtf8() {
+      String str = "ab\u00E9\u20AC\uD83D\uDE00c";
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      // The first byte isn't lost
+      Assert.assertArrayEquals(CodePoints(str), ReadAll(FromBytes(bytes, 0)));
+      Assert.assertArrayEquals(
+        CodePoints(str),
+        ReadAllInBlocks(FromBytes(bytes, 0), new Random(1)));
+      Assert.assertArrayEquals(
+        CodePoints("a"),
+        ReadAll(FromBytes(new byte[] { 0x61 }, 0)));
+      Assert.assertEquals(-1, FromBytes(new byte[0], 0).ReadChar());
+      // A byte-order mark is skipped
+      byte[] withBom = ("\uFEFF" + str).getBytes(StandardCharsets.UTF_8);
+      Assert.assertArrayEquals(CodePoints(str), ReadAll(FromBytes(withBom, 0)));
+      Assert.assertArrayEquals(
+        CodePoints(str),
+        ReadAllInBlocks(FromBytes(withBom, 0), new Random(1)));
+      // Not detected as UTF-16, as it would be in mode 1
+      byte[] utf16 = "ab".getBytes(StandardCharsets.UTF_16LE);
+      Assert.assertArrayEquals(
+        new int[] { 0x61, 0, 0x62, 0 },
+        ReadAll(FromBytes(utf16, 0)));
+    }
+
+    // Makes random bytes: valid UTF-8 for characters of every length,
+    // broken up by bytes that make invalid or truncated sequences
+    private static byte[] RandomBytes(Random rand) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      int kind = rand.nextInt(8);
+      if (kind == 0) {
+        bytes.write(0xef);
+        bytes.write(0xbb);
+        bytes.write(0xbf);
+      } else if (kind == 1) {
+        bytes.write(0xff);
+        bytes.write(0xfe);
+      } else if (kind == 2) {
+        bytes.write(0xfe);
+        bytes.write(0xff);
+      }
+      int length = rand.nextInt(300);
+      String[] samples = {
+        "a", "<", "\n", "\u00E9", "\u07FF", "\u0800", "\u20AC", "\uFFFD",
+        "\uD7FF", "\uE000", "\uD83D\uDE00", "\uDBFF\uDFFF",
+      };
+      while (bytes.size() < length) {
+        if (rand.nextInt(10) == 0) {
+          bytes.write(rand.nextInt(256));
+        } else if (rand.nextInt(5) == 0) {
+          bytes.write(rand.nextInt(0x80));
+        } else {
+          byte[] sample = samples[rand.nextInt(samples.length)]
+            .getBytes(StandardCharsets.UTF_8);
+          bytes.write(sample, 0, sample.length);
+        }
+      }
+      return bytes.toByteArray();
+    }
+
+    @Test
+    public void TestReadInBlocksMatchesReadChar() {
+      Random rand = new Random(20);
+      for (int i = 0; i < 20000; ++i) {
+        byte[] bytes = RandomBytes(rand);
+        int mode = rand.nextInt(5);
+        int[] expected = ReadAll(FromBytes(bytes, mode));
+        Assert.assertArrayEquals(
+          expected,
+          ReadAllInBlocks(FromBytes(bytes, mode), rand));
+        if (mode == 0) {
+          // The same as Java's decoder
+          String decoded = new String(bytes, StandardCharsets.UTF_8);
+          if (decoded.startsWith("\uFEFF")) {
+            decoded = decoded.substring(1);
+          }
+          Assert.assertArrayEquals(CodePoints(decoded), expected);
+        }
+      }
+    }
+
+    @Test
+    public void TestReadInLargeBlocks() {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < 10000; ++i) {
+        builder.append("<http://a/\u00E9").append(i).append("> \u20AC\n");
+      }
+      String str = builder.toString();
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      for (int mode = 0; mode <= 4; ++mode) {
+        CharacterReader reader = FromBytes(bytes, mode);
+        int[] chars = new int[str.length() + 10];
+        int count = 0;
+        while (true) {
+          int read = reader.Read(chars, count, Math.min(
+            8192,
+            chars.length - count));
+          if (read == 0) {
+            break;
+          }
+          count += read;
+        }
+        Assert.assertArrayEquals(CodePoints(str), Arrays.copyOf(chars, count));
+      }
+    }
+  }
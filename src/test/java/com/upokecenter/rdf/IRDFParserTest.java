@@ -0,0 +1,80 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+import java.util.stream.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class IRDFParserTest {
+    // Parser that implements only the methods without defaults
+    private static final class SetParser implements IRDFParser {
+      private final Set<RDFTriple> triples;
+      private final boolean fail;
+
+      public SetParser(Set<RDFTriple> triples, boolean fail) {
+        this.triples = triples;
+        this.fail = fail;
+      }
+
+      public Set<RDFTriple> Parse() {
+        if (this.fail) {
+          throw new ParserException();
+        }
+        return new HashSet<RDFTriple>(this.triples);
+      }
+    }
+
+    private static Set<RDFTriple> MakeTriples() {
+      return new NTriplesParser(
+        "<http://a/s> <http://a/p> \"x\" .\n" +
+        "<http://a/s> <http://a/p> _:b0 .\n" +
+        "_:b0 <http://a/q> <http://a/o> .\n").Parse();
+    }
+
+    @Test
+    public void TestDefaultMethods() {
+      Set<RDFTriple> expected = MakeTriples();
+      IRDFParser parser = new SetParser(expected, false);
+      List<RDFTriple> list = new ArrayList<RDFTriple>();
+      parser.Parse(list);
+      Assert.assertEquals(expected, new HashSet<RDFTriple>(list));
+      list.clear();
+      parser.Parse(RDFInternal.ToSink(list));
+      Assert.assertEquals(expected, new HashSet<RDFTriple>(list));
+      final List<RDFTriple> batched = new ArrayList<RDFTriple>();
+      parser.Parse(new ITripleBatchSink() {
+        public void AddTriples(RDFTriple[] triples, int count) {
+          Assert.assertTrue(count <= 2);
+          batched.addAll(Arrays.asList(triples).subList(0, count));
+        }
+      }, 2);
+      Assert.assertEquals(expected, new HashSet<RDFTriple>(batched));
+      Iterator<RDFTriple> iterator = parser.ParseIterator();
+      list.clear();
+      while (iterator.hasNext()) {
+        list.add(iterator.next());
+      }
+      Assert.assertEquals(expected, new HashSet<RDFTriple>(list));
+      Assert.assertEquals(
+        expected,
+        parser.ParseStream().collect(Collectors.toSet()));
+      TermTable table = new TermTable();
+      final int[] count = new int[1];
+      parser.Parse(table, new ITripleIdSink() {
+        public void AddTriple(int subject, int predicate, int obj) {
+          ++count[0];
+        }
+      });
+      Assert.assertEquals(3, count[0]);
+      ValidationResult result = parser.Validate();
+      Assert.assertTrue(result.IsValid());
+      Assert.assertEquals(3, result.GetTripleCount());
+    }
+
+    @Test
+    public void TestDefaultValidateError() {
+      ValidationResult result = new SetParser(MakeTriples(), true).Validate();
+      Assert.assertFalse(result.IsValid());
+      Assert.assertNotNull(result.GetError());
+    }
+  }
@@ -0,0 +1,77 @@
+package com.upokecenter.rdf;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class IncrementalTurtleParserTest {
+    private static void FeedBytes(
+      IncrementalTurtleParser parser,
+      String text,
+      int chunkSize) {
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      for (int i = 0; i < bytes.length; i += chunkSize) {
+        parser.Feed(ByteBuffer.wrap(
+          bytes,
+          i,
+          Math.min(chunkSize, bytes.length - i)));
+      }
+    }
+
+    @Test(timeout = 20000)
+    public void TestLargeStatementInOneByteChunks() {
+      StringBuilder builder = new StringBuilder();
+      builder.append("<http://a/s> <http://a/p> ");
+      for (int i = 0; i < 20000; ++i) {
+        if (i > 0) {
+          builder.append(", ");
+        }
+        // Periods in IRIs, strings and comments don't end the statement
+        builder.append((i % 2 == 0) ? "<http://example.com/o" :
+          "\"object no. ").append(i).append((i % 2 == 0) ? ".x>" :
+          "\" # comment.\n");
+      }
+      builder.append(" .\n");
+      List<RDFTriple> triples = new ArrayList<RDFTriple>();
+      IncrementalTurtleParser parser = new IncrementalTurtleParser(
+        RDFInternal.ToSink(triples));
+      FeedBytes(parser, builder.toString(), 1);
+      Assert.assertEquals(20000, triples.size());
+      parser.EndOfInput();
+      Assert.assertEquals(20000, triples.size());
+    }
+
+    @Test
+    public void TestStatementCompletedByChunkWithoutPeriod() {
+      String[] texts = new String[] {
+        "<http://a/s> <http://a/p> 1.",
+        "@prefix ex: <http://a/> . ex:s ex:p ex:o.",
+        "<http://a/s> <http://a/p> 1.e",
+        "<http://a/s> <http://a/p> \"\"\"x \" . \"\" .\"\"\"",
+      };
+      String[] rests = new String[] { "\n", " ", "5 .\n", " ." };
+      for (int i = 0; i < texts.length; ++i) {
+        List<RDFTriple> triples = new ArrayList<RDFTriple>();
+        IncrementalTurtleParser parser = new IncrementalTurtleParser(
+          RDFInternal.ToSink(triples));
+        FeedBytes(parser, texts[i], 1);
+        Assert.assertEquals(texts[i], 0, triples.size());
+        FeedBytes(parser, rests[i], 1);
+        Assert.assertEquals(texts[i], 1, triples.size());
+      }
+    }
+
+    @Test
+    public void TestSparqlPrefixInOneByteChunks() {
+      List<RDFTriple> triples = new ArrayList<RDFTriple>();
+      IncrementalTurtleParser parser = new IncrementalTurtleParser(
+        RDFInternal.ToSink(triples));
+      FeedBytes(parser, "PREFIX ex: <http://a/>\nex:s ex:p ex:o .", 1);
+      Assert.assertEquals(1, triples.size());
+      Assert.assertEquals(
+        RDFTerm.FromIRI("http://a/o"),
+        triples.get(0).GetObject());
+    }
+  }
@@ -0,0 +1,138 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.*;
+import java.util.zip.*;
+import com.upokecenter.util.StackableCharacterInput;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class NTriplesParserTest {
+    // Makes N-Triples data long enough for ParseStream to split
+    private static byte[] MakeData(int count) {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < count; ++i) {
+        builder.append("<http://example.com/s").append(i % 100)
+          .append("> <http://example.com/p> \"o").append(i)
+          .append("\"@en .\n");
+      }
+      return builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void TestParseStreamUsesTermDictionary() {
+      byte[] data = MakeData(5000);
+      TermDictionary dictionary = new TermDictionary();
+      NTriplesParser parser = new NTriplesParser(data);
+      parser.setTermDictionary(dictionary);
+      List<RDFTriple> triples = parser.ParseStream()
+        .collect(Collectors.toList());
+      Assert.assertEquals(5000, triples.size());
+      Assert.assertTrue(dictionary.GetLookupCount() > 0);
+      Assert.assertSame(
+        triples.get(0).GetPredicate(),
+        triples.get(4999).GetPredicate());
+      Assert.assertEquals(
+        new HashSet<RDFTriple>(triples),
+        new NTriplesParser(data).Parse());
+    }
+
+    @Test
+    public void TestParallelParseStreamSharesTermDictionary() {
+      byte[] data = MakeData(50000);
+      TermDictionary dictionary = new TermDictionary();
+      NTriplesParser parser = new NTriplesParser(data);
+      parser.setTermDictionary(dictionary);
+      Set<RDFTriple> triples = parser.ParseStream().parallel()
+        .collect(Collectors.toSet());
+      Assert.assertEquals(new NTriplesParser(data).Parse(), triples);
+      // 100 subjects, one predicate and one language tag
+      Assert.assertEquals(102, dictionary.GetCount());
+      Assert.assertEquals(
+        dictionary.GetLookupCount() - 102,
+        dictionary.GetHitCount());
+    }
+
+    private static byte[] Gzip(String text) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+        gzip.write(text.getBytes(StandardCharsets.UTF_8));
+      }
+      return bytes.toByteArray();
+    }
+
+    @Test
+    public void TestMaxBufferedChars() throws IOException {
+      StringBuilder builder = new StringBuilder("<http://a/s> <http://a/");
+      for (int i = 0; i < 5000; ++i) {
+        builder.append('p');
+      }
+      builder.append("> \"x\" .\n");
+      byte[] gzip = Gzip(builder.toString());
+      NTriplesParser parser = NTriplesParser.FromGzip(
+        new ByteArrayInputStream(gzip));
+      Assert.assertEquals(
+        StackableCharacterInput.DefaultMaxBufferSize,
+        parser.getMaxBufferedChars());
+      Assert.assertEquals(1, parser.Parse().size());
+      parser = NTriplesParser.FromGzip(new ByteArrayInputStream(gzip));
+      parser.setMaxBufferedChars(1000);
+      try {
+        parser.Parse();
+        Assert.fail("Should have failed");
+      } catch (ParserException ex) {
+        Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+      }
+      ValidationResult result = NTriplesParser.FromGzip(
+        new ByteArrayInputStream(gzip)).Validate();
+      Assert.assertTrue(result.IsValid());
+      parser = NTriplesParser.FromGzip(new ByteArrayInputStream(gzip));
+      parser.setMaxBufferedChars(1000);
+      Assert.assertFalse(parser.Validate().IsValid());
+    }
+
+    // Checks that Validate, which doesn't keep the text of the
+    // tokens it reads, accepts and rejects the same documents as
+    // Parse
+    private static void AssertValidateMatchesParse(String doc) {
+      int count;
+      try {
+        count = new NTriplesParser(doc).Parse().size();
+      } catch (ParserException ex) {
+        count = -1;
+      }
+      ValidationResult result = new NTriplesParser(doc).Validate();
+      Assert.assertEquals(doc, count >= 0, result.IsValid());
+      if (count >= 0) {
+        Assert.assertEquals(doc, count, result.GetTripleCount());
+      }
+    }
+
+    @Test
+    public void TestValidateMatchesParse() {
+      String[] docs = {
+        "<http://a/s> <http://a/p> <http://a/o> .\n",
+        "<a\\u003Ab> <http://a/p> <http://a/o> .\n",
+        "<ab> <http://a/p> <http://a/o> .\n",
+        "<> <http://a/p> <http://a/o> .\n",
+        "<http://a/s> <ab> <http://a/o> .\n",
+        "<a:b c> <http://a/p> <http://a/o> .\n",
+        "<a:b\\u0020> <http://a/p> <http://a/o> .\n",
+        "<a:b\\u00E9> <http://a/p> <http://a/o> .\n",
+        "_:b1 <http://a/p> _:b2 .\n",
+        "_:1b <http://a/p> _:b2 .\n",
+        "_:b <http://a/p> \"x\\ty\\u00E9\" .\n",
+        "_:b <http://a/p> \"x\\qy\" .\n",
+        "_:b <http://a/p> \"x\n",
+        "_:b <http://a/p> \"x\"@en-us .\n",
+        "_:b <http://a/p> \"x\"@en- .\n",
+        "_:b <http://a/p> \"x\"^^<http://a/t> .\n",
+        "_:b <http://a/p> \"x\"^^<t> .\n",
+      };
+      for (String doc : docs) {
+        AssertValidateMatchesParse(doc);
+      }
+    }
+  }
@@ -0,0 +1,96 @@
+package com.upokecenter.rdf;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class RDFTermTest {
+    private static void AssertEqual(RDFTerm a, RDFTerm b) {
+      Assert.assertEquals(a, b);
+      Assert.assertEquals(b, a);
+      Assert.assertEquals(a.hashCode(), b.hashCode());
+      // The hash code stays the same once computed
+      Assert.assertEquals(a.hashCode(), a.hashCode());
+    }
+
+    private static void AssertNotEqual(RDFTerm a, RDFTerm b) {
+      Assert.assertNotEquals(a, b);
+      Assert.assertNotEquals(b, a);
+    }
+
+    @Test
+    public void TestEqualsAndHashCode() {
+      AssertEqual(
+        RDFTerm.FromIRI("http://a/x"),
+        RDFTerm.FromIRI("http://a/x"));
+      AssertEqual(
+        RDFTerm.FromBlankNode("b0"),
+        RDFTerm.FromBlankNode("b0"));
+      AssertEqual(
+        RDFTerm.FromLangString("x", "en"),
+        RDFTerm.FromLangString("x", "en"));
+      AssertEqual(
+        RDFTerm.FromTypedString("x"),
+        RDFTerm.FromTypedString("x", RDFTerm.XmlSchemaString));
+      AssertEqual(
+        RDFTerm.FromTypedString("1", "http://a/int"),
+        RDFTerm.FromTypedString("1", "http://a/int"));
+      RDFTerm term = RDFTerm.FromIRI("http://a/x");
+      AssertEqual(term, term);
+    }
+
+    @Test
+    public void TestNotEquals() {
+      RDFTerm iri = RDFTerm.FromIRI("http://a/x");
+      AssertNotEqual(iri, RDFTerm.FromIRI("http://a/y"));
+      AssertNotEqual(iri, RDFTerm.FromBlankNode("http://a/x"));
+      AssertNotEqual(iri, RDFTerm.FromTypedString("http://a/x"));
+      AssertNotEqual(
+        RDFTerm.FromBlankNode("b0"),
+        RDFTerm.FromBlankNode("b1"));
+      AssertNotEqual(
+        RDFTerm.FromLangString("x", "en"),
+        RDFTerm.FromLangString("x", "fr"));
+      AssertNotEqual(
+        RDFTerm.FromLangString("x", "en"),
+        RDFTerm.FromLangString("y", "en"));
+      AssertNotEqual(
+        RDFTerm.FromLangString("x", "en"),
+        RDFTerm.FromTypedString("x", "en"));
+      AssertNotEqual(
+        RDFTerm.FromTypedString("1", "http://a/int"),
+        RDFTerm.FromTypedString("1", "http://a/long"));
+      Assert.assertFalse(iri.equals(null));
+      Assert.assertFalse(iri.equals("http://a/x"));
+    }
+
+    @Test
+    public void TestPrefixedIriEqualsFlatIri() {
+      RDFTerm flat = RDFTerm.FromIRI("http://a/ns#x");
+      AssertEqual(RDFTerm.FromIRI("http://a/ns#", "x"), flat);
+      // Split in different places
+      AssertEqual(
+        RDFTerm.FromIRI("http://a/", "ns#x"),
+        RDFTerm.FromIRI("http://a/ns#", "x"));
+      AssertEqual(
+        RDFTerm.FromIRI(new String("http://a/ns#"), "x"),
+        RDFTerm.FromIRI("http://a/ns#", "x"));
+      AssertEqual(RDFTerm.FromIRI("", "http://a/ns#x"), flat);
+      AssertEqual(RDFTerm.FromIRI("http://a/ns#x", ""), flat);
+      Assert.assertEquals(
+        "http://a/ns#x",
+        RDFTerm.FromIRI("http://a/ns#", "x").GetValue());
+      Assert.assertEquals(
+        RDFTerm.IRI,
+        RDFTerm.FromIRI("http://a/ns#", "x").GetKind());
+      Assert.assertNull(
+        RDFTerm.FromIRI("http://a/ns#", "x").GetTypeOrLanguage());
+      AssertNotEqual(RDFTerm.FromIRI("http://a/ns#", "y"), flat);
+      AssertNotEqual(RDFTerm.FromIRI("http://a/", "ns#y"), flat);
+      AssertNotEqual(
+        RDFTerm.FromIRI("http://a/ns#", "x"),
+        RDFTerm.FromIRI("http://b/", "ns#x"));
+      AssertNotEqual(
+        RDFTerm.FromIRI("http://a/ns#", "x"),
+        RDFTerm.FromBlankNode("http://a/ns#x"));
+    }
+  }
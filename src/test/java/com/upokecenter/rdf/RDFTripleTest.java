@@ -0,0 +1,89 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class RDFTripleTest {
+    private static RDFTriple Triple(
+      RDFTerm subject,
+      String predicate,
+      RDFTerm obj) {
+      return new RDFTriple(subject, RDFTerm.FromIRI(predicate), obj);
+    }
+
+    @Test
+    public void TestEqualsAndHashCode() {
+      RDFTriple a = Triple(
+        RDFTerm.FromIRI("http://a/s"),
+        "http://a/p",
+        RDFTerm.FromLangString("x", "en"));
+      RDFTriple b = Triple(
+        RDFTerm.FromIRI("http://a/", "s"),
+        "http://a/p",
+        RDFTerm.FromLangString("x", "en"));
+      Assert.assertEquals(a, b);
+      Assert.assertEquals(b, a);
+      Assert.assertEquals(a.hashCode(), b.hashCode());
+      Assert.assertEquals(a.hashCode(), a.hashCode());
+      Assert.assertEquals(a, new RDFTriple(a));
+      Assert.assertEquals(a.hashCode(), new RDFTriple(a).hashCode());
+      RDFTriple blank = Triple(
+        RDFTerm.FromBlankNode("b0"),
+        "http://a/p",
+        RDFTerm.FromBlankNode("b1"));
+      Assert.assertEquals(blank, Triple(
+        RDFTerm.FromBlankNode("b0"),
+        "http://a/p",
+        RDFTerm.FromBlankNode("b1")));
+    }
+
+    @Test
+    public void TestNotEquals() {
+      RDFTerm s = RDFTerm.FromIRI("http://a/s");
+      RDFTerm o = RDFTerm.FromTypedString("1", "http://a/int");
+      RDFTriple triple = Triple(s, "http://a/p", o);
+      Assert.assertNotEquals(triple, Triple(
+        RDFTerm.FromIRI("http://a/t"),
+        "http://a/p",
+        o));
+      Assert.assertNotEquals(triple, Triple(s, "http://a/q", o));
+      Assert.assertNotEquals(triple, Triple(
+        s,
+        "http://a/p",
+        RDFTerm.FromTypedString("1", "http://a/long")));
+      Assert.assertNotEquals(triple, Triple(
+        s,
+        "http://a/p",
+        RDFTerm.FromTypedString("2", "http://a/int")));
+      // Subject and object swapped
+      Assert.assertNotEquals(
+        Triple(s, "http://a/p", RDFTerm.FromIRI("http://a/o")),
+        Triple(RDFTerm.FromIRI("http://a/o"), "http://a/p", s));
+      Assert.assertNotEquals(
+        Triple(RDFTerm.FromBlankNode("b0"), "http://a/p", o),
+        Triple(RDFTerm.FromBlankNode("b1"), "http://a/p", o));
+      Assert.assertFalse(triple.equals(null));
+      Assert.assertFalse(triple.equals(s));
+    }
+
+    @Test
+    public void TestInHashSet() {
+      Set<RDFTriple> triples = new HashSet<RDFTriple>();
+      for (int i = 0; i < 100; ++i) {
+        triples.add(Triple(
+          RDFTerm.FromIRI("http://a/", "s" + (i % 10)),
+          "http://a/p",
+          RDFTerm.FromLangString("x" + (i % 5), "en")));
+      }
+      Assert.assertEquals(10, triples.size());
+      Assert.assertTrue(triples.contains(Triple(
+        RDFTerm.FromIRI("http://a/s3"),
+        "http://a/p",
+        RDFTerm.FromLangString("x3", "en"))));
+      Assert.assertFalse(triples.contains(Triple(
+        RDFTerm.FromIRI("http://a/s3"),
+        "http://a/p",
+        RDFTerm.FromLangString("x4", "en"))));
+    }
+  }
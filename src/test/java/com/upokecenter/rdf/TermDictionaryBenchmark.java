@@ -0,0 +1,64 @@
+package com.upokecenter.rdf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+  /**
+   * Measures a TermDictionary shared by several threads: lookups made
+   * directly from four threads at once, and a parallel ParseStream whose
+   * part parsers share the dictionary. Run with, for example:
+   * {@code java -cp target/test-classes:target/classes:<dependencies>
+   * org.openjdk.jmh.Main TermDictionaryBenchmark}
+   */
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Fork(1)
+  @State(Scope.Benchmark)
+  public class TermDictionaryBenchmark {
+    // Distinct IRIs looked up, all of which fit in the dictionary
+    private static final int IriCount = 4096;
+
+    private TermDictionary dictionary;
+    private String[] iris;
+    private byte[] data;
+
+    // Position of each thread in the list of IRIs
+    @State(Scope.Thread)
+    public static class Cursor {
+      private int index;
+    }
+
+    @Setup
+    public void Setup() {
+      this.dictionary = new TermDictionary();
+      this.iris = new String[IriCount];
+      for (int i = 0; i < IriCount; ++i) {
+        this.iris[i] = "http://example.com/resource/" + i;
+      }
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < 200000; ++i) {
+        builder.append("<http://example.com/s").append(i % 1000)
+          .append("> <http://example.com/p").append(i % 20)
+          .append("> \"o").append(i).append("\"@en .\n");
+      }
+      this.data = builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RDFTerm SharedLookups(Cursor cursor) {
+      int index = (cursor.index + 1) & (IriCount - 1);
+      cursor.index = index;
+      return this.dictionary.GetIri(this.iris[index]);
+    }
+
+    @Benchmark
+    public long ParallelParseStream() {
+      NTriplesParser parser = new NTriplesParser(this.data);
+      parser.setTermDictionary(this.dictionary);
+      return parser.ParseStream().parallel().count();
+    }
+  }
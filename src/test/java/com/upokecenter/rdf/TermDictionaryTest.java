@@ -0,0 +1,98 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class TermDictionaryTest {
+    @Test
+    public void TestSameObjectForRepeatedLookups() {
+      TermDictionary dictionary = new TermDictionary();
+      RDFTerm term = dictionary.GetIri(new String("http://a/b"));
+      Assert.assertSame(term, dictionary.GetIri(new String("http://a/b")));
+      String tag = dictionary.GetLanguageTag(new String("en"));
+      Assert.assertSame(tag, dictionary.GetLanguageTag(new String("en")));
+      Assert.assertEquals(2, dictionary.GetCount());
+      Assert.assertEquals(4, dictionary.GetLookupCount());
+      Assert.assertEquals(2, dictionary.GetHitCount());
+      Assert.assertEquals(0.5, dictionary.GetHitRate(), 0.0);
+    }
+
+    @Test
+    public void TestMaxSize() {
+      int[] sizes = { 1, 3, 10, 100 };
+      for (int size : sizes) {
+        TermDictionary dictionary = new TermDictionary(size);
+        for (int i = 0; i < size * 20; ++i) {
+          dictionary.GetIri("http://a/" + i);
+          dictionary.GetLanguageTag("x-" + i);
+        }
+        // So many distinct entries fill up the dictionary
+        Assert.assertEquals(size * 2, dictionary.GetCount());
+        Assert.assertEquals(
+          (size * 20 - size) * 2,
+          dictionary.GetEvictionCount());
+        dictionary.ResetStatistics();
+        Assert.assertEquals(0, dictionary.GetEvictionCount());
+        Assert.assertEquals(0, dictionary.GetLookupCount());
+        dictionary.Clear();
+        Assert.assertEquals(0, dictionary.GetCount());
+      }
+    }
+
+    @Test
+    public void TestUsedEntryOutlivesUnusedEntry() {
+      TermDictionary dictionary = new TermDictionary(3);
+      RDFTerm term = dictionary.GetIri("http://a/0");
+      dictionary.GetIri("http://a/1");
+      dictionary.GetIri("http://a/2");
+      Assert.assertSame(term, dictionary.GetIri("http://a/0"));
+      // Evicts http://a/1, which wasn't used since it was added
+      dictionary.GetIri("http://a/3");
+      Assert.assertEquals(1, dictionary.GetEvictionCount());
+      Assert.assertSame(term, dictionary.GetIri("http://a/0"));
+      long hits = dictionary.GetHitCount();
+      dictionary.GetIri("http://a/1");
+      Assert.assertEquals(hits, dictionary.GetHitCount());
+    }
+
+    @Test
+    public void TestLookupsFromSeveralThreads() throws InterruptedException {
+      final TermDictionary dictionary = new TermDictionary();
+      final String[] iris = new String[1000];
+      for (int i = 0; i < iris.length; ++i) {
+        iris[i] = "http://a/" + i;
+      }
+      final RDFTerm[][] terms = new RDFTerm[4][iris.length];
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int t = 0; t < terms.length; ++t) {
+        final int index = t;
+        threads.add(new Thread(() -> {
+          for (int rep = 0; rep < 100; ++rep) {
+            for (int i = 0; i < iris.length; ++i) {
+              terms[index][i] = dictionary.GetIri(
+                new String(iris[(i + index * 250) % iris.length]));
+            }
+          }
+        }));
+      }
+      for (Thread thread : threads) {
+        thread.start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      // Each IRI misses only once, however many threads look it up
+      Assert.assertEquals(iris.length, dictionary.GetCount());
+      Assert.assertEquals(
+        dictionary.GetLookupCount() - iris.length,
+        dictionary.GetHitCount());
+      for (int t = 1; t < terms.length; ++t) {
+        for (int i = 0; i < iris.length; ++i) {
+          Assert.assertSame(
+            terms[0][(i + t * 250) % iris.length],
+            terms[t][i]);
+        }
+      }
+    }
+  }
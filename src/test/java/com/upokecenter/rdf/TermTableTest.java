@@ -0,0 +1,103 @@
+package com.upokecenter.rdf;
+
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class TermTableTest {
+    // Sink that keeps the triples read as terms of the table
+    private static final class TermSink implements ITripleIdSink {
+      private final TermTable table;
+      private final Set<RDFTriple> triples = new HashSet<RDFTriple>();
+
+      public TermSink(TermTable table) {
+        this.table = table;
+      }
+
+      public void AddTriple(int subject, int predicate, int obj) {
+        this.triples.add(new RDFTriple(
+          this.table.GetTerm(subject),
+          this.table.GetTerm(predicate),
+          this.table.GetTerm(obj)));
+      }
+    }
+
+    @Test
+    public void TestAddAndIndexOf() {
+      TermTable table = new TermTable();
+      RDFTerm iri = RDFTerm.FromIRI("http://a/x");
+      RDFTerm literal = RDFTerm.FromLangString("x", "en");
+      Assert.assertEquals(0, table.Add(iri));
+      Assert.assertEquals(1, table.Add(literal));
+      Assert.assertEquals(0, table.Add(RDFTerm.FromIRI("http://a/x")));
+      Assert.assertEquals(1, table.IndexOf(RDFTerm.FromLangString("x", "en")));
+      Assert.assertEquals(-1, table.IndexOf(RDFTerm.FromTypedString("x")));
+      Assert.assertEquals(2, table.GetCount());
+      Assert.assertEquals(literal, table.GetTerm(1));
+      Assert.assertEquals("en", table.GetTypeOrLanguage(1));
+    }
+
+    @Test
+    public void TestBlankNodesScopedPerDocument() {
+      TermTable table = new TermTable();
+      TermSink sink = new TermSink(table);
+      new NTriplesParser("_:a <http://a/p> _:a .\n").Parse(table, sink);
+      new NTriplesParser("_:a <http://a/p> _:a .\n").Parse(table, sink);
+      new TurtleParser("_:a <http://a/p> _:a .").Parse(table, sink);
+      Assert.assertEquals(3, sink.triples.size());
+      // Three distinct blank nodes and one predicate
+      Assert.assertEquals(4, table.GetCount());
+      for (RDFTriple triple : sink.triples) {
+        Assert.assertEquals(triple.GetSubject(), triple.GetObject());
+        Assert.assertTrue(RDFInternal.IsValidNTriplesLabel(
+          triple.GetSubject().GetValue()));
+      }
+    }
+
+    @Test
+    public void TestTurtleIdsMatchTriples() {
+      String text = "@prefix ex: <http://a/> .\n" +
+        "ex:s ex:p ex:o, \"x\"@en, 1 ; ex:q ex:o2 .\n" +
+        "ex:s2 ex:p ( 1 2 ) .\n" +
+        "[ ex:p ex:o ] ex:q _:b .\n";
+      TermTable table = new TermTable();
+      TermSink sink = new TermSink(table);
+      new TurtleParser(text).Parse(table, sink);
+      Set<RDFTriple> expected = new TurtleParser(text).Parse();
+      Assert.assertEquals(expected.size(), sink.triples.size());
+      int withBlankNodes = 0;
+      for (RDFTriple triple : sink.triples) {
+        RDFTerm[] terms = new RDFTerm[] {
+          triple.GetSubject(), triple.GetObject(),
+        };
+        boolean blank = false;
+        for (RDFTerm term : terms) {
+          if (term.GetKind() == RDFTerm.BLANK) {
+            Assert.assertTrue(RDFInternal.IsValidNTriplesLabel(
+              term.GetValue()));
+            blank = true;
+          }
+        }
+        if (blank) {
+          // Generated labels can differ from those of Parse()
+          ++withBlankNodes;
+        } else {
+          Assert.assertTrue(triple.toString(), expected.contains(triple));
+        }
+      }
+      // Five triples of the collection and two of the property list
+      Assert.assertEquals(7, withBlankNodes);
+    }
+
+    @Test
+    public void TestTurtleIdsWithDeduplication() {
+      String text = "<http://a/s> <http://a/p> _:x, _:x .";
+      TermTable table = new TermTable();
+      TermSink sink = new TermSink(table);
+      TurtleParser parser = new TurtleParser(text);
+      parser.setDeduplication(TripleDeduplication.Exact);
+      parser.Parse(table, sink);
+      Assert.assertEquals(1, sink.triples.size());
+      Assert.assertEquals(3, table.GetCount());
+    }
+  }
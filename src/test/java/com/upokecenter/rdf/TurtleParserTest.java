@@ -0,0 +1,145 @@
+package com.upokecenter.rdf;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class TurtleParserTest {
+    private static void AssertValidBlankNodes(Set<RDFTriple> triples) {
+      for (RDFTriple triple : triples) {
+        RDFTerm[] terms = new RDFTerm[] {
+          triple.GetSubject(), triple.GetObject(),
+        };
+        for (RDFTerm term : terms) {
+          if (term.GetKind() == RDFTerm.BLANK) {
+            Assert.assertTrue(
+              term.GetValue(),
+              RDFInternal.IsValidNTriplesLabel(term.GetValue()));
+          }
+        }
+      }
+    }
+
+    @Test
+    public void TestParseAnonymousBlankNodesOnly() {
+      Set<RDFTriple> triples = new TurtleParser(
+        "<http://a/s> <http://a/p> [ <http://a/q> \"x\" ] .").Parse();
+      Assert.assertEquals(2, triples.size());
+      AssertValidBlankNodes(triples);
+      RDFTerm blank = RDFTerm.FromBlankNode("b0");
+      Assert.assertTrue(triples.contains(new RDFTriple(
+        RDFTerm.FromIRI("http://a/s"),
+        RDFTerm.FromIRI("http://a/p"),
+        blank)));
+      Assert.assertTrue(triples.contains(new RDFTriple(
+        blank,
+        RDFTerm.FromIRI("http://a/q"),
+        RDFTerm.FromTypedString("x"))));
+    }
+
+    @Test
+    public void TestParseCollectionBlankNodesOnly() {
+      Set<RDFTriple> triples = new TurtleParser(
+        "<http://a/s> <http://a/p> ( 1 2 ) .").Parse();
+      Assert.assertEquals(5, triples.size());
+      AssertValidBlankNodes(triples);
+    }
+
+    @Test
+    public void TestParseLabeledAndAnonymousBlankNodes() {
+      Set<RDFTriple> triples = new TurtleParser(
+        "_:x <http://a/p> [ <http://a/q> _:x ] .").Parse();
+      Assert.assertEquals(2, triples.size());
+      AssertValidBlankNodes(triples);
+    }
+
+    @Test
+    public void TestParseCollectionKeepsRelabelSetting() {
+      TurtleParser parser = new TurtleParser(
+        "_:x <http://a/p> [ <http://a/q> \"x\" ] .");
+      List<RDFTriple> list = new ArrayList<RDFTriple>();
+      parser.Parse(list);
+      Assert.assertFalse(parser.getRelabelBlankNodesWhileParsing());
+      Assert.assertEquals(2, list.size());
+      AssertValidBlankNodes(new HashSet<RDFTriple>(list));
+      parser = new TurtleParser("_:x <http://a/p> _:y .");
+      parser.setRelabelBlankNodesWhileParsing(true);
+      parser.Parse(list);
+      Assert.assertTrue(parser.getRelabelBlankNodesWhileParsing());
+    }
+
+    @Test
+    public void TestMaxBufferedChars() throws IOException {
+      StringBuilder builder = new StringBuilder("<http://a/s> <http://a/p> \"");
+      for (int i = 0; i < 5000; ++i) {
+        builder.append('x');
+      }
+      builder.append("\" .\n");
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+        gzip.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+      }
+      TurtleParser parser = TurtleParser.FromGzip(
+        new ByteArrayInputStream(bytes.toByteArray()),
+        "http://a/");
+      Assert.assertEquals(1, parser.Parse().size());
+      parser = TurtleParser.FromGzip(
+        new ByteArrayInputStream(bytes.toByteArray()),
+        "http://a/");
+      parser.setMaxBufferedChars(1000);
+      Assert.assertEquals(1000, parser.getMaxBufferedChars());
+      try {
+        parser.Parse();
+        Assert.fail("Should have failed");
+      } catch (ParserException ex) {
+        Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+      }
+    }
+
+    // Checks that Validate, which doesn't keep the text of most of
+    // the tokens it reads, accepts and rejects the same documents as
+    // Parse
+    private static void AssertValidateMatchesParse(String doc) {
+      int count;
+      try {
+        count = new TurtleParser(doc).Parse().size();
+      } catch (ParserException ex) {
+        count = -1;
+      }
+      ValidationResult result = new TurtleParser(doc).Validate();
+      Assert.assertEquals(doc, count >= 0, result.IsValid());
+      if (count >= 0) {
+        Assert.assertEquals(doc, count, result.GetTripleCount());
+      }
+    }
+
+    @Test
+    public void TestValidateMatchesParse() {
+      String[] docs = {
+        "@prefix e: <http://a/> . e:s e:p e:o , e:o2 .",
+        "@prefix e: <http://a/> . e:s e:p e:o. .",
+        "@prefix e: <http://a/> . e:s e:p e:a%41\\~b .",
+        "@prefix e: <http://a/> . e:s e:p e:a%4 .",
+        "@prefix e: <http://a/> . e:s e:p f:o .",
+        "_:a.b <http://a/p> _:c .",
+        "_:a..b <http://a/p> _:c .",
+        "_:a. <http://a/p> _:c .",
+        "_:a.:b <http://a/p> _:c .",
+        "_:a <http://a/p> \"x\\ty\"@en-US .",
+        "_:a <http://a/p> \"x\\qy\" .",
+        "_:a <http://a/p> \"x\ny\" .",
+        "_:a <http://a/p> \"\"\"x\ny\"\"z\"\"\" .",
+        "_:a <http://a/p> '''x\\'''y''' .",
+        "_:a <http://a/p> \"\" , 'y' .",
+        "_:a <http://a/p> \"x\"@en- .",
+        "_:a <http://a/p> \"x\"^^<http://a/t> .",
+        "_:a <http://a/p> 1.5e3, -2, .5 .",
+      };
+      for (String doc : docs) {
+        AssertValidateMatchesParse(doc);
+      }
+    }
+  }
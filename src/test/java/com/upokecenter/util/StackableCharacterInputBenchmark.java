@@ -0,0 +1,107 @@
+package com.upokecenter.util;
+
+import java.util.concurrent.TimeUnit;
+import com.upokecenter.text.ICharacterInput;
+import org.openjdk.jmh.annotations.*;
+
+  /**
+   * Measures StackableCharacterInput on token-dense input, where a mark is set
+   * for nearly every token as the parsers do. Run with, for example:
+   * {@code java -cp target/test-classes:target/classes:<dependencies>
+   * org.openjdk.jmh.Main StackableCharacterInputBenchmark}
+   */
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Fork(1)
+  @State(Scope.Benchmark)
+  public class StackableCharacterInputBenchmark {
+    // Characters in the input
+    private static final int Length = 1 << 20;
+
+    // Characters in each token
+    @Param({ "4", "16" })
+    public int tokenLength;
+
+    private int[] text;
+
+    private static final class ArrayInput implements ICharacterInput {
+      private final int[] text;
+      private int pos;
+
+      public ArrayInput(int[] text) {
+        this.text = text;
+      }
+
+      public int ReadChar() {
+        return (this.pos < this.text.length) ? this.text[this.pos++] : -1;
+      }
+
+      public int Read(int[] buf, int offset, int unitCount) {
+        int count = Math.min(unitCount, this.text.length - this.pos);
+        if (count <= 0) {
+          return (unitCount == 0) ? 0 : -1;
+        }
+        System.arraycopy(this.text, this.pos, buf, offset, count);
+        this.pos += count;
+        return count;
+      }
+    }
+
+    @Setup
+    public void Setup() {
+      this.text = new int[Length];
+      for (int i = 0; i < Length; ++i) {
+        this.text[i] = (i % (this.tokenLength + 1) == this.tokenLength) ?
+          ' ' : 'a' + (i % 26);
+      }
+    }
+
+    // Sets a hard mark before each token and reads it, looking one
+    // character past its end as a parser does
+    @Benchmark
+    public int HardMarkPerToken() {
+      StackableCharacterInput input = new StackableCharacterInput(
+        new ArrayInput(this.text));
+      int sum = 0;
+      while (true) {
+        input.SetHardMark();
+        int ch = input.ReadChar();
+        if (ch < 0) {
+          return sum;
+        }
+        while (ch >= 0 && ch != ' ') {
+          sum += ch;
+          ch = input.ReadChar();
+        }
+      }
+    }
+
+    // Sets a soft mark before each token, reads it, then moves back
+    // to the mark and reads it again
+    @Benchmark
+    public int SoftMarkAndRewind() {
+      StackableCharacterInput input = new StackableCharacterInput(
+        new ArrayInput(this.text));
+      input.SetHardMark();
+      int sum = 0;
+      while (true) {
+        int mark = input.SetSoftMark();
+        int ch = input.ReadChar();
+        if (ch < 0) {
+          return sum;
+        }
+        while (ch >= 0 && ch != ' ') {
+          ch = input.ReadChar();
+        }
+        input.SetMarkPosition(mark);
+        ch = input.ReadChar();
+        while (ch >= 0 && ch != ' ') {
+          sum += ch;
+          ch = input.ReadChar();
+        }
+        input.SetHardMark();
+      }
+    }
+  }
@@ -0,0 +1,82 @@
+package com.upokecenter.util;
+
+import com.upokecenter.text.ICharacterInput;
+import org.junit.Assert;
+import org.junit.Test;
+
+  public class StackableCharacterInputTest {
+    // Input of the specified number of 'a' characters
+    private static ICharacterInput Repeat(final int length) {
+      return new ICharacterInput() {
+        private int count;
+
+        public int ReadChar() {
+          if (this.count >= length) {
+            return -1;
+          }
+          ++this.count;
+          return 'a';
+        }
+
+        public int Read(int[] buf, int offset, int unitCount) {
+          int total = 0;
+          while (total < unitCount && this.count < length) {
+            buf[offset + total] = 'a';
+            ++total;
+            ++this.count;
+          }
+          return (total == 0 && unitCount > 0) ? -1 : total;
+        }
+      };
+    }
+
+    @Test
+    public void TestMarkedRegionWithinMaximum() {
+      StackableCharacterInput input = new StackableCharacterInput(
+        Repeat(100000));
+      input.SetMaxBufferSize(5000);
+      Assert.assertEquals(5000, input.GetMaxBufferSize());
+      // Marks set often keep the marked region small
+      for (int i = 0; i < 100000; ++i) {
+        if (i % 1000 == 0) {
+          input.SetHardMark();
+        }
+        Assert.assertEquals('a', input.ReadChar());
+      }
+      Assert.assertEquals(-1, input.ReadChar());
+      input.SetMarkPosition(0);
+      Assert.assertEquals('a', input.ReadChar());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void TestMarkedRegionExceedsMaximum() {
+      StackableCharacterInput input = new StackableCharacterInput(
+        Repeat(100000));
+      input.SetMaxBufferSize(5000);
+      input.SetHardMark();
+      for (int i = 0; i < 100000; ++i) {
+        input.ReadChar();
+      }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void TestBlockReadExceedsMaximum() {
+      StackableCharacterInput input = new StackableCharacterInput(
+        Repeat(100000));
+      input.SetMaxBufferSize(5000);
+      input.SetHardMark();
+      int[] buf = new int[3000];
+      int total = 0;
+      while (total < 100000) {
+        int count = input.Read(buf, 0, buf.length);
+        Assert.assertTrue(count > 0);
+        total += count;
+        Assert.assertTrue(input.GetMarkPosition() <= 5000);
+      }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TestSetMaxBufferSizeZero() {
+      new StackableCharacterInput(Repeat(1)).SetMaxBufferSize(0);
+    }
+  }